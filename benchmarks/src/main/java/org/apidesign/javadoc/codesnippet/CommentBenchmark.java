@@ -0,0 +1,85 @@
+/**
+ * Codesnippet Javadoc Doclet
+ * Copyright (C) 2015-2020 Jaroslav Tulach - jaroslav.tulach@apidesign.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.0 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://opensource.org/licenses/GPL-3.0.
+ */
+package org.apidesign.javadoc.codesnippet;
+
+import com.sun.javadoc.Doc;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures expansion of {@code {@snippet}} tags in a large comment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CommentBenchmark {
+    @Param({ "50" })
+    public int snippets;
+
+    private static final int FILES = 20;
+    private static final int METHODS = 5;
+
+    private Path root;
+    private String comment;
+    private Snippets expander;
+
+    @Setup
+    public void generateSources() throws IOException {
+        root = SyntheticSources.generate(FILES, METHODS);
+        comment = SyntheticSources.comment(snippets, FILES, METHODS);
+        expander = new Snippets(null);
+        expander.addPath(root, true);
+        expander.getSnippet(null);
+    }
+
+    @TearDown
+    public void deleteSources() throws IOException {
+        SyntheticSources.delete(root);
+    }
+
+    @Benchmark
+    public Object matchSnippet() {
+        String[] code = { null };
+        int[] end = { -1 };
+        Matcher m = Snippets.matchSnippet(expander.getSnippet(null), comment, code, end);
+        return m.end();
+    }
+
+    @Benchmark
+    public String fixCodesnippets() {
+        Doc doc = SyntheticSources.doc(comment);
+        expander.fixCodesnippets(doc, doc);
+        return doc.getRawCommentText();
+    }
+}
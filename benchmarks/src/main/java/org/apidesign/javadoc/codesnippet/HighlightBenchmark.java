@@ -0,0 +1,80 @@
+/**
+ * Codesnippet Javadoc Doclet
+ * Copyright (C) 2015-2020 Jaroslav Tulach - jaroslav.tulach@apidesign.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.0 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://opensource.org/licenses/GPL-3.0.
+ */
+package org.apidesign.javadoc.codesnippet;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures {@link JavaHighlighter} and the original regular expression
+ * based {@link CodeSnippet#boldJavaKeywords} on a generated class.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HighlightBenchmark {
+    @Param({ "10" })
+    public int methods;
+
+    @Param({ "lexer", "regex" })
+    public String highlighter;
+
+    private String code;
+    private Map<String, String> imports;
+    private Set<String> packages;
+    private Snippets snippets;
+
+    @Setup
+    public void generateCode() {
+        code = SyntheticSources.generateClass("org.apidesign.bench", "Sample", methods);
+        imports = new TreeMap<>();
+        imports.put("IOException", "java.io.IOException");
+        imports.put("Callable", "java.util.concurrent.Callable");
+        packages = new LinkedHashSet<>();
+        packages.add("java.util");
+        snippets = new Snippets(null);
+        snippets.setHighlighter(highlighter);
+    }
+
+    @Benchmark
+    public String withImports() {
+        return snippets.highlight(code, imports, packages);
+    }
+
+    @Benchmark
+    public String withoutImports() {
+        return snippets.highlight(code, Collections.<String, String>emptyMap(), Collections.<String>emptySet());
+    }
+}
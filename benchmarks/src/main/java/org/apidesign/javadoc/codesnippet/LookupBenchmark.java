@@ -0,0 +1,79 @@
+/**
+ * Codesnippet Javadoc Doclet
+ * Copyright (C) 2015-2020 Jaroslav Tulach - jaroslav.tulach@apidesign.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.0 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://opensource.org/licenses/GPL-3.0.
+ */
+package org.apidesign.javadoc.codesnippet;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures lookups in a {@link SnippetCollection} with many regions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LookupBenchmark {
+    @Param({ "10000" })
+    public int files;
+
+    private static final int METHODS = 10;
+
+    private SnippetCollection collection;
+    private int index;
+
+    @Setup
+    public void registerSnippets() {
+        collection = new SnippetCollection(null);
+        for (int i = 0; i < files; i++) {
+            for (int m = 0; m < METHODS; m++) {
+                collection.registerSnippet(file(i), region(i, m), "code of " + region(i, m));
+            }
+        }
+    }
+
+    @Benchmark
+    public String findSnippet() {
+        int i = index++ % files;
+        return collection.findSnippet(null, file(i), region(i, i % METHODS));
+    }
+
+    @Benchmark
+    public String findGlobalSnippet() {
+        int i = index++ % files;
+        return collection.findGlobalSnippet(null, region(i, i % METHODS));
+    }
+
+    private static String file(int i) {
+        return "org/apidesign/bench/p" + (i / 100) + "/Sample" + i + ".java";
+    }
+
+    private static String region(int i, int m) {
+        return "Sample" + i + ".m" + m;
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Codesnippet Javadoc Doclet
+ * Copyright (C) 2015-2020 Jaroslav Tulach - jaroslav.tulach@apidesign.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.0 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://opensource.org/licenses/GPL-3.0.
+ */
+package org.apidesign.javadoc.codesnippet;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Compares the regular expression and tokenizer engines recognizing
+ * imports and region markers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MarkerParserBenchmark {
+    @Param({ "1000" })
+    public int files;
+
+    @Param({ "regex", "tokenizer" })
+    public String parser;
+
+    private Path root;
+    private List<String> lines;
+    private Snippets snippets;
+
+    @Setup
+    public void generateSources() throws IOException {
+        root = SyntheticSources.generate(files, 10);
+        lines = new ArrayList<>();
+        try (Stream<Path> all = Files.walk(root)) {
+            for (Path f : all.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                lines.addAll(Files.readAllLines(f, Charset.defaultCharset()));
+            }
+        }
+        snippets = new Snippets(null);
+        snippets.setParser(parser);
+    }
+
+    @TearDown
+    public void deleteSources() throws IOException {
+        SyntheticSources.delete(root);
+    }
+
+    @Benchmark
+    public void parseLines(Blackhole bh) {
+        for (String line : lines) {
+            bh.consume(snippets.importName(line));
+            bh.consume(snippets.startMarker(line));
+            bh.consume(snippets.endMarker(line));
+        }
+    }
+
+    @Benchmark
+    public void scanTree(Blackhole bh) {
+        Snippets s = new Snippets(null);
+        s.setParser(parser);
+        s.addPath(root, true);
+        bh.consume(s.getSnippet(null));
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Codesnippet Javadoc Doclet
+ * Copyright (C) 2015-2020 Jaroslav Tulach - jaroslav.tulach@apidesign.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.0 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://opensource.org/licenses/GPL-3.0.
+ */
+package org.apidesign.javadoc.codesnippet;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures {@link CodeSnippet#scanDir} and {@link CodeSnippet#collectClasses}
+ * on a generated source tree. Use {@code -p files=5000} to change its size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ScanBenchmark {
+    @Param({ "200" })
+    public int files;
+
+    @Param({ "10" })
+    public int methods;
+
+    private Path root;
+    private Map<String, String> topClasses;
+
+    @Setup
+    public void generateSources() throws IOException {
+        root = SyntheticSources.generate(files, methods);
+        topClasses = new TreeMap<>();
+        CodeSnippet.collectClasses(root, topClasses, new Snippets(null));
+    }
+
+    @TearDown
+    public void deleteSources() throws IOException {
+        SyntheticSources.delete(root);
+    }
+
+    @Benchmark
+    public Object collectClasses() throws IOException {
+        Map<String, String> classes = new TreeMap<>();
+        CodeSnippet.collectClasses(root, classes, new Snippets(null));
+        return classes;
+    }
+
+    @Benchmark
+    public Object scanDir() throws IOException {
+        SnippetCollection collection = new SnippetCollection(null);
+        CodeSnippet.scanDir(root, topClasses, collection, new Snippets(null));
+        return collection;
+    }
+}
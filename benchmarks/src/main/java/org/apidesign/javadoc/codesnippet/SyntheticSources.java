@@ -0,0 +1,164 @@
+/**
+ * Codesnippet Javadoc Doclet
+ * Copyright (C) 2015-2020 Jaroslav Tulach - jaroslav.tulach@apidesign.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.0 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://opensource.org/licenses/GPL-3.0.
+ */
+package org.apidesign.javadoc.codesnippet;
+
+import com.sun.javadoc.Doc;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.Charset;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/** Generates a source tree with snippets to run the benchmarks on.
+ */
+final class SyntheticSources {
+    private SyntheticSources() {
+    }
+
+    /** Generates Java files with imports, comments, strings and regions
+     * marked by both legacy and JEP 413 markers.
+     *
+     * @param files number of files to generate
+     * @param methods number of methods (each in its own region) per file
+     * @return the root directory of the tree
+     */
+    static Path generate(int files, int methods) throws IOException {
+        Path root = Files.createTempDirectory("snippets");
+        for (int i = 0; i < files; i++) {
+            String pkg = "org.apidesign.bench.p" + (i / 100);
+            Path dir = root.resolve(pkg.replace('.', '/'));
+            Files.createDirectories(dir);
+            String name = "Sample" + i;
+            Files.write(dir.resolve(name + ".java"), generateClass(pkg, name, methods).getBytes(Charset.defaultCharset()));
+        }
+        return root;
+    }
+
+    static String generateClass(String pkg, String name, int methods) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(pkg).append(";\n\n");
+        sb.append("import java.io.IOException;\n");
+        sb.append("import java.util.*;\n");
+        sb.append("import java.util.concurrent.Callable;\n\n");
+        sb.append("/** Generated class {@link ").append(name).append("}.\n");
+        sb.append(" * Used to measure the speed of scanning regions.\n");
+        sb.append(" */\n");
+        sb.append("// @start region=\"").append(name).append("\"\n");
+        sb.append("public class ").append(name).append(" implements Callable<String> {\n");
+        for (int m = 0; m < methods; m++) {
+            String region = name + ".m" + m;
+            if (m % 2 == 0) {
+                sb.append("    // BEGIN: ").append(region).append("\n");
+            } else {
+                sb.append("    // @start region=\"").append(region).append("\"\n");
+            }
+            sb.append("    public List<String> method").append(m).append("(int count) throws IOException {\n");
+            sb.append("        // collect the values into a list, see: http://apidesign.org\n");
+            sb.append("        List<String> result = new ArrayList<>();\n");
+            sb.append("        for (int i = 0; i < count; i++) {\n");
+            sb.append("            if (i % 3 == 0 && i > ").append(m).append(") {\n");
+            sb.append("                result.add(\"value: \" + i + \" of \" + count);\n");
+            sb.append("            }\n");
+            sb.append("        }\n");
+            sb.append("        return result;\n");
+            sb.append("    }\n");
+            if (m % 2 == 0) {
+                sb.append("    // END: ").append(region).append("\n");
+            } else {
+                sb.append("    // @end region=\"").append(region).append("\"\n");
+            }
+            sb.append("\n");
+        }
+        sb.append("    @Override\n");
+        sb.append("    public String call() throws Exception {\n");
+        sb.append("        return String.valueOf(method0(10));\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+        sb.append("// @end region=\"").append(name).append("\"\n");
+        return sb.toString();
+    }
+
+    /** Generates a Javadoc comment referencing regions generated by
+     * {@link #generate(int, int)} mixed with inline snippets and text.
+     *
+     * @param snippets number of snippet tags in the comment
+     * @param files number of files in the generated tree
+     * @param methods number of methods per generated file
+     * @return the raw text of the comment
+     */
+    static String comment(int snippets, int files, int methods) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Overview of the generated API.\n");
+        for (int i = 0; i < snippets; i++) {
+            sb.append("<p>\nParagraph ").append(i).append(" describes the usage of the API\n");
+            sb.append("in a few sentences and then shows the code:\n");
+            if (i % 3 == 2) {
+                sb.append("{@snippet :\n");
+                sb.append("public static void main(String... args) {\n");
+                sb.append("    System.out.println(\"Hello \" + ").append(i).append(");\n");
+                sb.append("}\n");
+                sb.append("}\n");
+            } else {
+                int file = (i * 31) % files;
+                int method = i % methods;
+                String pkg = "org/apidesign/bench/p" + (file / 100);
+                sb.append("{@snippet file=\"").append(pkg).append("/Sample").append(file)
+                    .append(".java\" region=\"Sample").append(file).append(".m").append(method).append("\"}\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    /** Creates a {@link Doc} holding the raw comment text.
+     */
+    static Doc doc(String comment) {
+        final String[] text = { comment };
+        return (Doc) Proxy.newProxyInstance(Doc.class.getClassLoader(), new Class<?>[] { Doc.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getRawCommentText":
+                    return text[0];
+                case "setRawCommentText":
+                    text[0] = (String) args[0];
+                    return null;
+                case "toString":
+                    return "Doc[" + text[0].length() + "]";
+                default:
+                    return null;
+            }
+        });
+    }
+
+    static void delete(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -18,13 +18,17 @@
 package org.apidesign.javadoc.codesnippet;
 
 import com.github.marschall.memoryfilesystem.MemoryFileSystemBuilder;
+import com.sun.javadoc.Doc;
 import java.io.BufferedWriter;
+import java.lang.reflect.Proxy;
 import java.nio.charset.Charset;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertSame;
 import static org.testng.AssertJUnit.assertTrue;
 import static org.testng.AssertJUnit.fail;
 import org.testng.annotations.Test;
@@ -96,6 +100,41 @@ public class SnippetsTest {
         );
     }
 
+    @Test public void testAllTagsExpandedInOnePass() throws Exception {
+        String c1
+            = "package ahoj;\n"
+            + "public class I {\n"
+            + "// @start region=\"first\"\n"
+            + "  String first;\n"
+            + "// @end region=\"first\"\n"
+            + "// BEGIN: second\n"
+            + "  int second;\n"
+            + "// END: second\n"
+            + "// BEGIN: ahoj.Third\n"
+            + "  long third;\n"
+            + "// END: ahoj.Third\n"
+            + "}\n"
+            + "";
+        Path src = createPath(1, "I.java", c1);
+
+        Snippets snippets = new Snippets(null);
+        addPath(snippets, src.getParent());
+        snippets.addClasses("ahoj\\..*|java\\.lang\\.String");
+
+        String txt = "A {@codesnippet second} B {@snippet file=\"I.java\" region=\"first\"}"
+            + " C {@link ahoj.Third} D {@snippet :\n int x = 0;\n} E {@link ahoj}";
+        String r = snippets.expandTags(null, txt);
+
+        assertEquals("A <pre class='snippet'><b>int</b> second;\n</pre>"
+            + " B <pre class='snippet'>{@link java.lang.String} first;\n</pre>"
+            + " C <pre class='snippet'><b>long</b> third;\n</pre>"
+            + " D <pre class='snippet'>\n <b>int</b> x = 0;\n</pre>"
+            + " E {@link ahoj}", r
+        );
+        String noTags = "No tags {@link java.util.List}";
+        assertSame(noTags, snippets.expandTags(null, noTags));
+    }
+
     @Test public void testJavaLangImportRecognized() throws Exception {
         String c1
             = "package ahoj;\n"
@@ -152,6 +191,28 @@ public class SnippetsTest {
         assertEquals("<b>public</b> {@link java.io.File} get();\n", r);
     }
 
+    @Test public void testStarImportsOfJdkAndClassPath() throws Exception {
+        String c1
+            = "package ahoj;\n"
+            + "import java.util.concurrent.*;\n"
+            + "import org.testng.*;\n"
+            + "public interface I {\n"
+            + "// BEGIN: xyz\n"
+            + "  public TimeUnit unit(Assert a, Missing m);\n"
+            + "  public TimeUnit unit(Assert a, Missing m);\n"
+            + "// FINISH: xyz\n"
+            + "}"
+            + "";
+        Path src = createPath(1, "I.java", c1);
+
+        Snippets snippets = new Snippets(null);
+        addPath(snippets, src.getParent());
+        String r = snippets.getSnippet(null).findGlobalSnippet(null, "xyz");
+
+        String line = "<b>public</b> {@link java.util.concurrent.TimeUnit} unit({@link org.testng.Assert} a, Missing m);\n";
+        assertEquals(line + line, r);
+    }
+
     @Test public void testSpacesAtBeginingAreStripped() throws Exception {
         String c1
             = "package ahoj;\n"
@@ -174,6 +235,41 @@ public class SnippetsTest {
         assertEquals(result, r);
     }
 
+    @Test public void testFinishClosesNestedBlocksWithTheirIndentation() throws Exception {
+        StringBuilder c1 = new StringBuilder();
+        c1.append("package ahoj;\n");
+        c1.append("public class C {\n");
+        c1.append("    // BEGIN: xyz\n");
+        c1.append("    public void run() {\n");
+        c1.append("\n");
+        c1.append("        if (true) { }\n");
+        c1.append("        for (;;) {\n");
+        for (int i = 0; i < 5000; i++) {
+            c1.append("            run();\n");
+        }
+        c1.append("    // FINISH: xyz\n");
+        c1.append("        }\n");
+        c1.append("    }\n");
+        c1.append("}\n");
+        Path src = createPath(1, "C.java", c1.toString());
+
+        Snippets snippets = new Snippets(null);
+        addPath(snippets, src.getParent());
+        String r = snippets.getSnippet(null).findGlobalSnippet(null, "xyz");
+
+        StringBuilder exp = new StringBuilder();
+        exp.append("<b>public</b> <b>void</b> run() {\n");
+        exp.append("\n");
+        exp.append("    <b>if</b> (<b>true</b>) { }\n");
+        exp.append("    <b>for</b> (;;) {\n");
+        for (int i = 0; i < 5000; i++) {
+            exp.append("        run();\n");
+        }
+        exp.append("    }\n");
+        exp.append("}\n");
+        assertEquals(exp.toString(), r);
+    }
+
     @Test public void testReportUnpairedBracesAsError() throws Exception {
         String c1
             = "package ahoj;\n"
@@ -624,6 +720,181 @@ public class SnippetsTest {
         assertNotNull(r);
     }
 
+    @Test public void testUnchangedFilesServedFromCache() throws Exception {
+        String c1
+            = "package ahoj;\n"
+            + "// BEGIN: xyz\n"
+            + "public interface I {\n"
+            + "// FINISH: xyz\n"
+            + "  public void get();\n"
+            + "}"
+            + "";
+        Path src = createPath(1, "I.java", c1);
+        Path cache = src.getFileSystem().getPath("cache");
+
+        Snippets snippets = new Snippets(null);
+        snippets.setCacheDir(cache);
+        addPath(snippets, src.getParent());
+        String r = snippets.getSnippet(null).findGlobalSnippet(null, "xyz");
+        assertEquals("<b>public</b> <b>interface</b> {@link ahoj.I} {\n}\n", r);
+
+        FileTime time = Files.getLastModifiedTime(src);
+        Files.write(src, c1.replace("I {", "J {").getBytes(Charset.defaultCharset()));
+        Files.setLastModifiedTime(src, time);
+
+        Snippets cached = new Snippets(null);
+        cached.setCacheDir(cache);
+        addPath(cached, src.getParent());
+        String r2 = cached.getSnippet(null).findGlobalSnippet(null, "xyz");
+        assertEquals("Same size and time, served from the cache", r, r2);
+
+        Files.setLastModifiedTime(src, FileTime.fromMillis(time.toMillis() + 10000));
+
+        Snippets rescanned = new Snippets(null);
+        rescanned.setCacheDir(cache);
+        addPath(rescanned, src.getParent());
+        String r3 = rescanned.getSnippet(null).findGlobalSnippet(null, "xyz");
+        assertEquals("Different hash, file scanned again", "<b>public</b> <b>interface</b> J {\n}\n", r3);
+    }
+
+    @Test public void testParallelScanFindsTheSameSnippets() throws Exception {
+        Path src = createPath(1, "I.java", "package ahoj;\npublic interface I {\n}\n");
+        for (int i = 0; i < 50; i++) {
+            String c
+                = "package ahoj;\n"
+                + "public class C" + i + " implements I {\n"
+                + "  // BEGIN: method" + i + "\n"
+                + "  public I create() {\n"
+                + "    return new C" + ((i + 1) % 50) + "();\n"
+                + "  }\n"
+                + "  // END: method" + i + "\n"
+                + "}\n";
+            Files.write(src.getParent().resolve("C" + i + ".java"), c.getBytes(Charset.defaultCharset()));
+        }
+
+        Snippets sequential = new Snippets(null);
+        addPath(sequential, src.getParent());
+        Snippets parallel = new Snippets(null);
+        parallel.setThreads("4");
+        addPath(parallel, src.getParent());
+
+        for (int i = 0; i < 50; i++) {
+            String exp = sequential.getSnippet(null).findGlobalSnippet(null, "method" + i);
+            String r = parallel.getSnippet(null).findGlobalSnippet(null, "method" + i);
+            assertEquals(exp, r);
+            assertTrue(r, r.contains("{@link ahoj.C" + ((i + 1) % 50) + "}"));
+        }
+    }
+
+    @Test public void testParallelCommentExpansion() throws Exception {
+        Path src = createPath(1, "I.java", "package ahoj;\npublic interface I {\n}\n");
+        for (int i = 0; i < 20; i++) {
+            String c
+                = "package ahoj;\n"
+                + "public class C" + i + " implements I {\n"
+                + "  // @start region=\"method" + i + "\"\n"
+                + "  public I create() {\n"
+                + "    return new C" + ((i + 1) % 20) + "();\n"
+                + "  }\n"
+                + "  // @end region=\"method" + i + "\"\n"
+                + "}\n";
+            Files.write(src.getParent().resolve("C" + i + ".java"), c.getBytes(Charset.defaultCharset()));
+        }
+        String[] sequential = expandComments(src.getParent(), 1);
+        String[] parallel = expandComments(src.getParent(), 4);
+        for (int i = 0; i < sequential.length; i++) {
+            assertEquals(sequential[i], parallel[i]);
+            if (i % 3 != 0) {
+                assertTrue(parallel[i], parallel[i].contains("{@link ahoj.C" + ((i + 1) % 20) + "}"));
+            }
+        }
+    }
+
+    private static String[] expandComments(Path root, int threads) {
+        Snippets snippets = new Snippets(null);
+        snippets.setThreads("" + threads);
+        addPath(snippets, root);
+        final String[] texts = new String[100];
+        CommentExpander expander = new CommentExpander(snippets, threads);
+        for (int i = 0; i < texts.length; i++) {
+            final int index = i;
+            texts[i] = i % 3 == 0 ? "No snippet in " + i
+                : "Comment " + i + " {@snippet file=\"C" + (i % 20) + ".java\" region=\"method" + (i % 20) + "\"} end";
+            Doc doc = (Doc) Proxy.newProxyInstance(Doc.class.getClassLoader(), new Class<?>[] { Doc.class }, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getRawCommentText":
+                        return texts[index];
+                    case "setRawCommentText":
+                        texts[index] = (String) args[0];
+                        return null;
+                    default:
+                        return null;
+                }
+            });
+            expander.add(null, doc);
+        }
+        expander.expand();
+        return texts;
+    }
+
+    @Test public void testLazyModeReadsJustTheReferencedFile() throws Exception {
+        String c1
+            = "package ahoj;\n"
+            + "// @start region=\"xyz\"\n"
+            + "public interface I extends J {\n"
+            + "// @end region=\"xyz\"\n"
+            + "}\n";
+        Path src = createPath(1, "ahoj/I.java", c1);
+        String c2
+            = "package ahoj;\n"
+            + "// @start region=\"broken\"\n"
+            + "public interface J {\n"
+            + "}\n";
+        Files.write(src.resolveSibling("J.java"), c2.getBytes(Charset.defaultCharset()));
+
+        Snippets snippets = new Snippets(null);
+        snippets.setLazy(true);
+        addPath(snippets, src.getParent().getParent());
+        String r = snippets.getSnippet(null).findSnippet(null, "ahoj/I.java", "xyz");
+        assertEquals("<b>public</b> <b>interface</b> {@link ahoj.I} <b>extends</b> {@link ahoj.J} {\n", r);
+
+        try {
+            snippets.getSnippet(null).findGlobalSnippet(null, "unknown");
+            fail("Global lookup scans all the files");
+        } catch (IllegalStateException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains("Not closed section broken"));
+        }
+    }
+
+    @Test public void inlineSnippetUsesTheLexer() throws Exception {
+        Snippets snippets = new Snippets(null);
+        snippets.setModeLegacy(false);
+        String r = snippets.expandTags(null, ""
+            + "Text block:\n"
+            + "{@snippet :\n"
+            + "var text = \"\"\"\n"
+            + "    if\n"
+            + "    \"\"\";\n"
+            + "}\n"
+        );
+
+        assertEquals("Text block:\n"
+            + "<pre class='snippet'>\n"
+            + "<b>var</b> text = <em>\"\"\"\n"
+            + "    if\n"
+            + "    \"\"\"</em>;\n"
+            + "</pre>\n", r);
+    }
+
+    @Test public void inlineSnippetFollowsTheHighlighterOption() throws Exception {
+        Snippets snippets = new Snippets(null);
+        snippets.setModeLegacy(false);
+        assertTrue(snippets.setHighlighter("regex"));
+        String r = snippets.expandTags(null, "{@snippet :\nvar x = 1;\n}\n");
+
+        assertEquals("<pre class='snippet'>\nvar x = 1;\n</pre>\n", r);
+    }
+
     private static int cnt;
     protected final Path createPath(int slot, String name, String content) throws Exception {
         FileSystem fs = MemoryFileSystemBuilder.newEmpty().
@@ -96,7 +96,7 @@ public class AbstractIndexWriter extends HtmlDocletWriter {
      * @param contentTree the content tree to which the information will be added
      */
     protected void addContents(Character uc, List<? extends Doc> memberlist,
-            Content contentTree) {
+            Content contentTree) throws IOException {
         String unicode = uc.toString();
         contentTree.addContent(getMarkerAnchorForIndex(unicode));
         Content headContent = new StringContent(unicode);
@@ -106,7 +106,7 @@ public class AbstractIndexWriter extends HtmlDocletWriter {
         int memberListSize = memberlist.size();
         // Display the list only if there are elements to be displayed.
         if (memberListSize > 0) {
-            Content dl = new HtmlTree(HtmlTag.DL);
+            Content dl = ContentStream.open(contentTree, new HtmlTree(HtmlTag.DL), list -> list);
             for (int i = 0; i < memberListSize; i++) {
                 Doc element = memberlist.get(i);
                 if (element instanceof MemberDoc) {
@@ -117,7 +117,7 @@ public class AbstractIndexWriter extends HtmlDocletWriter {
                     addDescription((PackageDoc)element, dl);
                 }
             }
-            contentTree.addContent(dl);
+            ContentStream.close(contentTree, dl, list -> list);
         }
     }
 
@@ -104,37 +104,37 @@ public class ClassUseWriter extends SubWriterHolderWriter {
                           ClassDoc classdoc) throws IOException {
         super(configuration, filename);
         this.classdoc = classdoc;
-        if (mapper.classToPackageAnnotations.containsKey(classdoc.qualifiedName()))
-                pkgToPackageAnnotations = new TreeSet<PackageDoc>(mapper.classToPackageAnnotations.get(classdoc.qualifiedName()));
+        List<PackageDoc> packageAnnotations = mapper.getPackageAnnotations(classdoc);
+        if (!packageAnnotations.isEmpty())
+                pkgToPackageAnnotations = new TreeSet<PackageDoc>(packageAnnotations);
         configuration.currentcd = classdoc;
         this.pkgSet = new TreeSet<PackageDoc>();
-        this.pkgToClassTypeParameter = pkgDivide(mapper.classToClassTypeParam);
-        this.pkgToClassAnnotations = pkgDivide(mapper.classToClassAnnotations);
-        this.pkgToMethodTypeParameter = pkgDivide(mapper.classToExecMemberDocTypeParam);
-        this.pkgToMethodArgTypeParameter = pkgDivide(mapper.classToExecMemberDocArgTypeParam);
-        this.pkgToFieldTypeParameter = pkgDivide(mapper.classToFieldDocTypeParam);
-        this.pkgToFieldAnnotations = pkgDivide(mapper.annotationToFieldDoc);
-        this.pkgToMethodReturnTypeParameter = pkgDivide(mapper.classToExecMemberDocReturnTypeParam);
-        this.pkgToMethodAnnotations = pkgDivide(mapper.classToExecMemberDocAnnotations);
-        this.pkgToMethodParameterAnnotations = pkgDivide(mapper.classToExecMemberDocParamAnnotation);
-        this.pkgToSubclass = pkgDivide(mapper.classToSubclass);
-        this.pkgToSubinterface = pkgDivide(mapper.classToSubinterface);
-        this.pkgToImplementingClass = pkgDivide(mapper.classToImplementingClass);
-        this.pkgToField = pkgDivide(mapper.classToField);
-        this.pkgToMethodReturn = pkgDivide(mapper.classToMethodReturn);
-        this.pkgToMethodArgs = pkgDivide(mapper.classToMethodArgs);
-        this.pkgToMethodThrows = pkgDivide(mapper.classToMethodThrows);
-        this.pkgToConstructorAnnotations = pkgDivide(mapper.classToConstructorAnnotations);
-        this.pkgToConstructorParameterAnnotations = pkgDivide(mapper.classToConstructorParamAnnotation);
-        this.pkgToConstructorArgs = pkgDivide(mapper.classToConstructorArgs);
-        this.pkgToConstructorArgTypeParameter = pkgDivide(mapper.classToConstructorDocArgTypeParam);
-        this.pkgToConstructorThrows = pkgDivide(mapper.classToConstructorThrows);
+        this.pkgToClassTypeParameter = pkgDivide(mapper.getUses(ClassUseMapper.Use.CLASS_TYPE_PARAMETER, classdoc));
+        this.pkgToClassAnnotations = pkgDivide(mapper.getUses(ClassUseMapper.Use.CLASS_ANNOTATIONS, classdoc));
+        this.pkgToMethodTypeParameter = pkgDivide(mapper.getUses(ClassUseMapper.Use.METHOD_TYPE_PARAMETER, classdoc));
+        this.pkgToMethodArgTypeParameter = pkgDivide(mapper.getUses(ClassUseMapper.Use.METHOD_ARG_TYPE_PARAMETER, classdoc));
+        this.pkgToFieldTypeParameter = pkgDivide(mapper.getUses(ClassUseMapper.Use.FIELD_TYPE_PARAMETER, classdoc));
+        this.pkgToFieldAnnotations = pkgDivide(mapper.getUses(ClassUseMapper.Use.FIELD_ANNOTATIONS, classdoc));
+        this.pkgToMethodReturnTypeParameter = pkgDivide(mapper.getUses(ClassUseMapper.Use.METHOD_RETURN_TYPE_PARAMETER, classdoc));
+        this.pkgToMethodAnnotations = pkgDivide(mapper.getUses(ClassUseMapper.Use.METHOD_ANNOTATIONS, classdoc));
+        this.pkgToMethodParameterAnnotations = pkgDivide(mapper.getUses(ClassUseMapper.Use.METHOD_PARAMETER_ANNOTATIONS, classdoc));
+        this.pkgToSubclass = pkgDivide(mapper.getUses(ClassUseMapper.Use.SUBCLASS, classdoc));
+        this.pkgToSubinterface = pkgDivide(mapper.getUses(ClassUseMapper.Use.SUBINTERFACE, classdoc));
+        this.pkgToImplementingClass = pkgDivide(mapper.getUses(ClassUseMapper.Use.IMPLEMENTING_CLASS, classdoc));
+        this.pkgToField = pkgDivide(mapper.getUses(ClassUseMapper.Use.FIELD, classdoc));
+        this.pkgToMethodReturn = pkgDivide(mapper.getUses(ClassUseMapper.Use.METHOD_RETURN, classdoc));
+        this.pkgToMethodArgs = pkgDivide(mapper.getUses(ClassUseMapper.Use.METHOD_ARGS, classdoc));
+        this.pkgToMethodThrows = pkgDivide(mapper.getUses(ClassUseMapper.Use.METHOD_THROWS, classdoc));
+        this.pkgToConstructorAnnotations = pkgDivide(mapper.getUses(ClassUseMapper.Use.CONSTRUCTOR_ANNOTATIONS, classdoc));
+        this.pkgToConstructorParameterAnnotations = pkgDivide(mapper.getUses(ClassUseMapper.Use.CONSTRUCTOR_PARAMETER_ANNOTATIONS, classdoc));
+        this.pkgToConstructorArgs = pkgDivide(mapper.getUses(ClassUseMapper.Use.CONSTRUCTOR_ARGS, classdoc));
+        this.pkgToConstructorArgTypeParameter = pkgDivide(mapper.getUses(ClassUseMapper.Use.CONSTRUCTOR_ARG_TYPE_PARAMETER, classdoc));
+        this.pkgToConstructorThrows = pkgDivide(mapper.getUses(ClassUseMapper.Use.CONSTRUCTOR_THROWS, classdoc));
         //tmp test
         if (pkgSet.size() > 0 &&
-            mapper.classToPackage.containsKey(classdoc.qualifiedName()) &&
-            !pkgSet.equals(mapper.classToPackage.get(classdoc.qualifiedName()))) {
+            !pkgSet.equals(mapper.getUsingPackages(classdoc))) {
             configuration.root.printWarning("Internal error: package sets don't match: " + pkgSet + " with: " +
-                                   mapper.classToPackage.get(classdoc.qualifiedName()));
+                                   mapper.getUsingPackages(classdoc));
         }
         methodSubWriter = new MethodWriterImpl(this);
         constrSubWriter = new ConstructorWriterImpl(this);
@@ -180,12 +180,11 @@ public class ClassUseWriter extends SubWriterHolderWriter {
         }
     }
 
-    private Map<String,List<ProgramElementDoc>> pkgDivide(Map<String,? extends List<? extends ProgramElementDoc>> classMap) {
+    private Map<String,List<ProgramElementDoc>> pkgDivide(List<ProgramElementDoc> list) {
         Map<String,List<ProgramElementDoc>> map = new HashMap<String,List<ProgramElementDoc>>();
-        List<? extends ProgramElementDoc> list= classMap.get(classdoc.qualifiedName());
-        if (list != null) {
+        if (!list.isEmpty()) {
             Collections.sort(list);
-            Iterator<? extends ProgramElementDoc> it = list.iterator();
+            Iterator<ProgramElementDoc> it = list.iterator();
             while (it.hasNext()) {
                 ProgramElementDoc doc = it.next();
                 PackageDoc pkg = doc.containingPackage();
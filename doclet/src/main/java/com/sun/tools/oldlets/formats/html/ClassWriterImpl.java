@@ -224,6 +224,19 @@ public class ClassWriterImpl extends SubWriterHolderWriter
                 true, contentTree);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public ContentStream startDocument(final Content contentTree,
+            Content classContentTree) throws IOException {
+        return openStream(classContentTree, inner -> {
+            contentTree.addContent(inner);
+            addFooter(contentTree);
+            return getHtmlDocument(configuration.metakeywords.getMetaKeywords(classDoc),
+                    true, contentTree);
+        });
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -106,9 +106,11 @@ public class HtmlDoclet extends AbstractDoclet {
     protected void generateOtherFiles(RootDoc root, ClassTree classtree)
             throws Exception {
         super.generateOtherFiles(root, classtree);
+        reportPhase("constant and serialized form pages");
         if (configuration.linksource) {
             SourceToHTMLConverter.convertRoot(configuration,
                 root, DocPaths.SOURCE_OUTPUT);
+            reportPhase("source pages");
         }
 
         if (configuration.topFile.isEmpty()) {
@@ -122,11 +124,14 @@ public class HtmlDoclet extends AbstractDoclet {
         // do early to reduce memory footprint
         if (configuration.classuse) {
             ClassUseWriter.generate(configuration, classtree);
+            reportPhase("class use pages");
         }
         IndexBuilder indexbuilder = new IndexBuilder(configuration, nodeprecated);
+        reportPhase("index builder");
 
         if (configuration.createtree) {
             TreeWriter.generate(configuration, classtree);
+            reportPhase("tree pages");
         }
         if (configuration.createindex) {
             if (configuration.splitindex) {
@@ -134,14 +139,17 @@ public class HtmlDoclet extends AbstractDoclet {
             } else {
                 SingleIndexWriter.generate(configuration, indexbuilder);
             }
+            reportPhase("index pages");
         }
 
         if (!(configuration.nodeprecatedlist || nodeprecated)) {
             DeprecatedListWriter.generate(configuration);
+            reportPhase("deprecated list page");
         }
 
         AllClassesFrameWriter.generate(configuration,
             new IndexBuilder(configuration, nodeprecated, true));
+        reportPhase("all classes pages");
 
         FrameOutputWriter.generate(configuration);
 
@@ -152,6 +160,7 @@ public class HtmlDoclet extends AbstractDoclet {
             !configuration.nohelp) {
             HelpWriter.generate(configuration);
         }
+        reportPhase("overview pages");
         // If a stylesheet file is not specified, copy the default stylesheet
         // and replace newline with platform-specific newline.
         DocFile f;
@@ -179,6 +188,13 @@ public class HtmlDoclet extends AbstractDoclet {
             ClassDoc next = (i+1 == arr.length)?
                 null:
                 arr[i+1];
+            if (configuration.pageFingerprints != null) {
+                String fingerprint = configuration.pageFingerprints
+                        .classFingerprint(curr, prev, next, classtree);
+                if (configuration.pageFingerprints.isUpToDate(DocPath.forClass(curr), fingerprint)) {
+                    continue;
+                }
+            }
             try {
                 if (curr.isAnnotationType()) {
                     AbstractBuilder annotationTypeBuilder =
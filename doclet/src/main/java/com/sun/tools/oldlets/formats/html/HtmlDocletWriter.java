@@ -404,6 +404,22 @@ public class HtmlDocletWriter extends HtmlDocWriter {
      */
     public void printHtmlDocument(String[] metakeywords, boolean includeScript,
             Content body) throws IOException {
+        write(getHtmlDocument(metakeywords, includeScript, body));
+    }
+
+    /**
+     * Generates the HTML document tree.
+     *
+     * @param metakeywords Array of String keywords for META tag. Each element
+     *                     of the array is assigned to a separate META tag.
+     *                     Pass in null for no array
+     * @param includeScript true if printing windowtitle script
+     *                      false for files that appear in the left-hand frames
+     * @param body the body htmltree to be included in the document
+     * @return the document
+     */
+    public Content getHtmlDocument(String[] metakeywords, boolean includeScript,
+            Content body) {
         Content htmlDocType = DocType.TRANSITIONAL;
         Content htmlComment = new Comment(configuration.getText("doclet.New_Page"));
         Content head = new HtmlTree(HtmlTag.HEAD);
@@ -429,9 +445,8 @@ public class HtmlDocletWriter extends HtmlDocWriter {
         head.addContent(getScriptProperties());
         Content htmlTree = HtmlTree.HTML(configuration.getLocale().getLanguage(),
                 head, body);
-        Content htmlDocument = new HtmlDocument(htmlDocType,
+        return new HtmlDocument(htmlDocType,
                 htmlComment, htmlTree);
-        write(htmlDocument);
     }
 
     /**
@@ -1068,7 +1083,7 @@ public class HtmlDocletWriter extends HtmlDocWriter {
         }
         DocPath href = pathToRoot
                 .resolve(DocPaths.SOURCE_OUTPUT)
-                .resolve(DocPath.forClass(cd));
+                .resolve(SourceToHTMLConverter.getSourcePath(cd));
         Content linkContent = getHyperLink(href.fragment(SourceToHTMLConverter.getAnchorName(doc)), label, "", "");
         htmltree.addContent(linkContent);
     }
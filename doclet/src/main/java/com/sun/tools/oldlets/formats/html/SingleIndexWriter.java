@@ -89,21 +89,44 @@ public class SingleIndexWriter extends AbstractIndexWriter {
      */
     protected void generateIndexFile() throws IOException {
         String title = configuration.getText("doclet.Window_Single_Index");
-        Content body = getBody(true, getWindowTitle(title));
+        final Content body = getBody(true, getWindowTitle(title));
         addTop(body);
         addNavLinks(true, body);
         HtmlTree divTree = new HtmlTree(HtmlTag.DIV);
         divTree.addStyle(HtmlStyle.contentContainer);
-        addLinksForIndexes(divTree);
+        if (configuration.streampages) {
+            ContentStream stream = openStream(divTree, inner -> {
+                addFooter(body, inner);
+                return getHtmlDocument(null, true, body);
+            });
+            addIndexContents(stream);
+            stream.close();
+        } else {
+            addIndexContents(divTree);
+            addFooter(body, divTree);
+            printHtmlDocument(null, true, body);
+        }
+    }
+
+    /**
+     * Add the links to all the Unicode characters and the members
+     * starting with each of them.
+     *
+     * @param contentTree the content tree to which the index will be added
+     */
+    protected void addIndexContents(Content contentTree) throws IOException {
+        addLinksForIndexes(contentTree);
         for (int i = 0; i < indexbuilder.elements().length; i++) {
             Character unicode = (Character)((indexbuilder.elements())[i]);
-            addContents(unicode, indexbuilder.getMemberList(unicode), divTree);
+            addContents(unicode, indexbuilder.getMemberList(unicode), contentTree);
         }
-        addLinksForIndexes(divTree);
+        addLinksForIndexes(contentTree);
+    }
+
+    private void addFooter(Content body, Content divTree) {
         body.addContent(divTree);
         addNavLinks(false, body);
         addBottom(body);
-        printHtmlDocument(null, true, body);
     }
 
     /**
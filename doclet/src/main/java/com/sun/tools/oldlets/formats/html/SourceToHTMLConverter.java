@@ -31,6 +31,10 @@ import com.sun.javadoc.Doc;
 import com.sun.javadoc.PackageDoc;
 import com.sun.javadoc.RootDoc;
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
 
 import javax.tools.FileObject;
 
@@ -42,6 +46,11 @@ import org.apidesign.javadoc.codesnippet.impl.Profiles;
 /**
  * Converts Java Source Code to HTML.
  *
+ * Each source file is converted once, into the page of its outermost
+ * class. Nested classes link to their lines on that page. The source is
+ * read when the page is requested and escaped line by line while the
+ * page is written, possibly by the {@link PageWriterPool}.
+ *
  *  <p><b>This is NOT part of any supported API.
  *  If you write code that depends on this, you do so at your own risk.
  *  This code and its internal interfaces are subject to change or
@@ -77,6 +86,11 @@ public class SourceToHTMLConverter {
      */
     private DocPath relativePath = DocPath.empty;
 
+    /**
+     * Outermost classes whose source has already been converted.
+     */
+    private final Set<ClassDoc> converted = new HashSet<ClassDoc>();
+
     private SourceToHTMLConverter(ConfigurationImpl configuration, RootDoc rd,
             DocPath outputdir) {
         this.configuration  = configuration;
@@ -140,7 +154,9 @@ public class SourceToHTMLConverter {
     }
 
     /**
-     * Convert the given Class to an HTML.
+     * Convert the source file of the given Class to an HTML.
+     * Nothing is done when the file has already been converted
+     * for another class it contains.
      *
      * @param cd the class to convert.
      * @param outputdir the name of the directory to output to.
@@ -149,45 +165,36 @@ public class SourceToHTMLConverter {
         if (cd == null) {
             return;
         }
+        if (!converted.add(getOutermostClass(cd))) {
+            return;
+        }
         try {
             SourcePosition sp = cd.position();
             if (sp == null)
                 return;
-            Reader r;
+            String source;
             // temp hack until we can update SourcePosition API.
             FileObject[] optional = Profiles.findFileObject(sp);
             if (optional != null) {
                 FileObject fo = optional[0];
                 if (fo == null)
                     return;
-                r = fo.openReader(true);
+                source = fo.getCharContent(true).toString();
             } else {
                 File file = sp.file();
                 if (file == null)
                     return;
-                r = new FileReader(file);
+                source = new String(Files.readAllBytes(file.toPath()), Charset.defaultCharset());
             }
-            LineNumberReader reader = new LineNumberReader(r);
-            int lineno = 1;
-            String line;
             relativePath = DocPaths.SOURCE_OUTPUT
                     .resolve(DocPath.forPackage(cd))
                     .invert();
             Content body = getHeader();
             Content pre = new HtmlTree(HtmlTag.PRE);
-            try {
-                while ((line = reader.readLine()) != null) {
-                    addLineNo(pre, lineno);
-                    addLine(pre, line, lineno);
-                    lineno++;
-                }
-            } finally {
-                reader.close();
-            }
-            addBlankLines(pre);
+            pre.addContent(new SourceLines(configuration, source));
             Content div = HtmlTree.DIV(HtmlStyle.sourceContainer, pre);
             body.addContent(div);
-            writeToFile(body, outputdir.resolve(DocPath.forClass(cd)));
+            writeToFile(body, outputdir.resolve(getSourcePath(cd)));
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -210,6 +217,10 @@ public class SourceToHTMLConverter {
         Content htmlDocument = new HtmlDocument(htmlDocType, htmlTree);
         configuration.message.notice("doclet.Generating_0", path.getPath());
         DocFile df = DocFile.createFileForOutput(configuration, path);
+        if (configuration.pageWriterPool != null) {
+            configuration.pageWriterPool.write(df, htmlDocument);
+            return;
+        }
         Writer w = df.openWriter();
         try {
             htmlDocument.write(w, true);
@@ -248,49 +259,22 @@ public class SourceToHTMLConverter {
     }
 
     /**
-     * Add the line numbers for the source code.
+     * Given a class, return the path of the page with its source,
+     * relative to the source output directory. Nested classes share
+     * the page of their outermost class.
      *
-     * @param pre the content tree to which the line number will be added
-     * @param lineno The line number
+     * @param cd the class to check.
+     * @return the path of the source page.
      */
-    private static void addLineNo(Content pre, int lineno) {
-        HtmlTree span = new HtmlTree(HtmlTag.SPAN);
-        span.addStyle(HtmlStyle.sourceLineNo);
-        if (lineno < 10) {
-            span.addContent("00" + Integer.toString(lineno));
-        } else if (lineno < 100) {
-            span.addContent("0" + Integer.toString(lineno));
-        } else {
-            span.addContent(Integer.toString(lineno));
-        }
-        pre.addContent(span);
+    public static DocPath getSourcePath(ClassDoc cd) {
+        return DocPath.forClass(getOutermostClass(cd));
     }
 
-    /**
-     * Add a line from source to the HTML file that is generated.
-     *
-     * @param pre the content tree to which the line will be added.
-     * @param line the string to format.
-     * @param currentLineNo the current number.
-     */
-    private void addLine(Content pre, String line, int currentLineNo) {
-        if (line != null) {
-            pre.addContent(Util.replaceTabs(configuration, line));
-            Content anchor = HtmlTree.A_NAME("line." + Integer.toString(currentLineNo));
-            pre.addContent(anchor);
-            pre.addContent(NEW_LINE);
-        }
-    }
-
-    /**
-     * Add trailing blank lines at the end of the page.
-     *
-     * @param pre the content tree to which the blank lines will be added.
-     */
-    private static void addBlankLines(Content pre) {
-        for (int i = 0; i < NUM_BLANK_LINES; i++) {
-            pre.addContent(NEW_LINE);
+    private static ClassDoc getOutermostClass(ClassDoc cd) {
+        while (cd.containingClass() != null) {
+            cd = cd.containingClass();
         }
+        return cd;
     }
 
     /**
@@ -302,4 +286,74 @@ public class SourceToHTMLConverter {
     public static String getAnchorName(Doc d) {
         return "line." + d.position().line();
     }
+
+    /**
+     * The lines of a source file. Each line is escaped and written
+     * together with its number and anchor, followed by the trailing
+     * blank lines, without building a content tree for them.
+     */
+    private static final class SourceLines extends Content {
+        private final ConfigurationImpl configuration;
+        private final String source;
+
+        SourceLines(ConfigurationImpl configuration, String source) {
+            this.configuration = configuration;
+            this.source = source;
+        }
+
+        @Override
+        public void addContent(Content content) {
+            throw new DocletAbortException("not supported");
+        }
+
+        @Override
+        public void addContent(String stringContent) {
+            throw new DocletAbortException("not supported");
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return false;
+        }
+
+        @Override
+        public boolean write(Writer out, boolean atNewline) throws IOException {
+            int lineno = 1;
+            int start = 0;
+            final int length = source.length();
+            while (start < length) {
+                int end = start;
+                while (end < length && source.charAt(end) != '\n' && source.charAt(end) != '\r') {
+                    end++;
+                }
+                writeLine(out, source.substring(start, end), lineno++);
+                if (end + 1 < length && source.charAt(end) == '\r' && source.charAt(end + 1) == '\n') {
+                    end++;
+                }
+                start = end + 1;
+            }
+            for (int i = 0; i < NUM_BLANK_LINES; i++) {
+                out.write(NEW_LINE);
+            }
+            return true;
+        }
+
+        private void writeLine(Writer out, String line, int lineno) throws IOException {
+            out.write("<span class=\"");
+            out.write(HtmlStyle.sourceLineNo.toString());
+            out.write("\">");
+            if (lineno < 10) {
+                out.write("00");
+            } else if (lineno < 100) {
+                out.write("0");
+            }
+            out.write(Integer.toString(lineno));
+            out.write("</span>");
+            HtmlEncoding.escapeHtmlChars(Util.replaceTabs(configuration, line), out);
+            out.write("<a name=\"line.");
+            out.write(Integer.toString(lineno));
+            out.write("\"></a>");
+            out.write(NEW_LINE);
+        }
+    }
 }
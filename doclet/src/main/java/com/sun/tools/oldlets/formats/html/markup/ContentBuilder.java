@@ -88,6 +88,13 @@ public class ContentBuilder extends Content {
         return n;
     }
 
+    /**
+     * The content added to this builder.
+     */
+    List<Content> children() {
+        return contents;
+    }
+
     private void ensureMutableContents() {
         if (contents.isEmpty())
             contents = new ArrayList<Content>();
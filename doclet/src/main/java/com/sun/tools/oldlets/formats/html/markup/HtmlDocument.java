@@ -101,6 +101,13 @@ public class HtmlDocument extends Content {
         return (docContent.isEmpty());
     }
 
+    /**
+     * The content added to this document.
+     */
+    List<Content> children() {
+        return docContent;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package com.sun.tools.oldlets.formats.html.markup;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Escapes HTML characters and percent encodes URLs.
+ *
+ * The characters are looked up in tables and appended directly to the
+ * target, without creating temporary strings. Strings with nothing to
+ * escape or encode are returned as they are.
+ *
+ *  <p><b>This is NOT part of any supported API.
+ *  If you write code that depends on this, you do so at your own risk.
+ *  This code and its internal interfaces are subject to change or
+ *  deletion without notice.</b>
+ */
+public final class HtmlEncoding {
+
+    /**
+     * Replacements of the ASCII characters that need escaping in HTML.
+     */
+    private static final String[] ENTITIES = new String[128];
+
+    /**
+     * ASCII URI characters to be left unencoded.
+     */
+    private static final boolean[] NONENCODING = new boolean[128];
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    static {
+        ENTITIES['<'] = "&lt;";
+        ENTITIES['>'] = "&gt;";
+        ENTITIES['&'] = "&amp;";
+
+        // alphabetic characters
+        for (int i = 'a'; i <= 'z'; i++) {
+            NONENCODING[i] = true;
+        }
+        for (int i = 'A'; i <= 'Z'; i++) {
+            NONENCODING[i] = true;
+        }
+        // numeric characters
+        for (int i = '0'; i <= '9'; i++) {
+            NONENCODING[i] = true;
+        }
+        // Reserved characters as per RFC 3986. These are set of delimiting characters.
+        String noEnc = ":/?#[]@!$&'()*+,;=";
+        // Unreserved characters as per RFC 3986 which should not be percent encoded.
+        noEnc += "-._~";
+        for (int i = 0; i < noEnc.length(); i++) {
+            NONENCODING[noEnc.charAt(i)] = true;
+        }
+    }
+
+    private HtmlEncoding() {
+    }
+
+    /**
+     * Whether the ASCII character may appear in an URL unencoded.
+     */
+    static boolean isNonEncoding(int ch) {
+        return ch < NONENCODING.length && NONENCODING[ch];
+    }
+
+    /**
+     * Escape all special HTML characters of a string.
+     *
+     * @param s the string to escape
+     * @return the string itself if there is nothing to escape, the escaped
+     *         copy otherwise
+     */
+    static String escapeHtmlChars(String s) {
+        int i = 0;
+        while (i < s.length() && !needsEscaping(s.charAt(i))) {
+            i++;
+        }
+        if (i == s.length()) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(s.length() + 16);
+        sb.append(s, 0, i);
+        try {
+            escapeHtmlChars(s, i, sb);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Append a string with all special HTML characters escaped.
+     *
+     * @param s the string to escape
+     * @param out the target
+     */
+    static void escapeHtmlChars(CharSequence s, StringBuilder out) {
+        try {
+            escapeHtmlChars(s, 0, out);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Write a string with all special HTML characters escaped.
+     *
+     * @param s the string to escape
+     * @param out the target
+     * @throws IOException if the target fails
+     */
+    public static void escapeHtmlChars(CharSequence s, Appendable out) throws IOException {
+        escapeHtmlChars(s, 0, out);
+    }
+
+    private static void escapeHtmlChars(CharSequence s, int from, Appendable out) throws IOException {
+        int start = from;
+        for (int i = from; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (needsEscaping(ch)) {
+                appendRun(s, start, i, out);
+                out.append(ENTITIES[ch]);
+                start = i + 1;
+            }
+        }
+        appendRun(s, start, s.length(), out);
+    }
+
+    private static boolean needsEscaping(char ch) {
+        return ch < ENTITIES.length && ENTITIES[ch] != null;
+    }
+
+    /**
+     * Percent encode all characters of the URL that are not allowed
+     * in it, using their UTF-8 bytes.
+     *
+     * @param url the URL to encode
+     * @return the URL itself if there is nothing to encode, the encoded
+     *         copy otherwise
+     */
+    static String encodeURL(String url) {
+        int i = 0;
+        while (i < url.length() && isNonEncoding(url.charAt(i))) {
+            i++;
+        }
+        if (i == url.length()) {
+            return url;
+        }
+        StringBuilder sb = new StringBuilder(url.length() + 16);
+        sb.append(url, 0, i);
+        try {
+            encodeURL(url, i, sb);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Write the URL with all characters that are not allowed in it
+     * percent encoded.
+     *
+     * @param url the URL to encode
+     * @param out the target
+     * @throws IOException if the target fails
+     */
+    public static void encodeURL(CharSequence url, Appendable out) throws IOException {
+        encodeURL(url, 0, out);
+    }
+
+    private static void encodeURL(CharSequence url, int from, Appendable out) throws IOException {
+        int start = from;
+        int i = from;
+        while (i < url.length()) {
+            char ch = url.charAt(i);
+            if (isNonEncoding(ch)) {
+                i++;
+                continue;
+            }
+            appendRun(url, start, i, out);
+            if (ch < 0x80) {
+                appendByte(ch, out);
+                i++;
+            } else if (ch < 0x800) {
+                appendByte(0xC0 | (ch >> 6), out);
+                appendByte(0x80 | (ch & 0x3F), out);
+                i++;
+            } else if (Character.isHighSurrogate(ch) && i + 1 < url.length()
+                    && Character.isLowSurrogate(url.charAt(i + 1))) {
+                int cp = Character.toCodePoint(ch, url.charAt(i + 1));
+                appendByte(0xF0 | (cp >> 18), out);
+                appendByte(0x80 | ((cp >> 12) & 0x3F), out);
+                appendByte(0x80 | ((cp >> 6) & 0x3F), out);
+                appendByte(0x80 | (cp & 0x3F), out);
+                i += 2;
+            } else if (Character.isSurrogate(ch)) {
+                // unpaired surrogates are replaced like String.getBytes does
+                out.append('?');
+                i++;
+            } else {
+                appendByte(0xE0 | (ch >> 12), out);
+                appendByte(0x80 | ((ch >> 6) & 0x3F), out);
+                appendByte(0x80 | (ch & 0x3F), out);
+                i++;
+            }
+            start = i;
+        }
+        appendRun(url, start, url.length(), out);
+    }
+
+    /**
+     * Appends a part of the sequence. Writers would copy it into a new
+     * string first, so strings are written to them directly.
+     */
+    private static void appendRun(CharSequence s, int start, int end, Appendable out) throws IOException {
+        if (start == end) {
+            return;
+        }
+        if (out instanceof Writer && s instanceof String) {
+            ((Writer) out).write((String) s, start, end - start);
+        } else {
+            out.append(s, start, end);
+        }
+    }
+
+    private static void appendByte(int b, Appendable out) throws IOException {
+        out.append('%');
+        out.append(HEX[(b >> 4) & 0xF]);
+        out.append(HEX[b & 0xF]);
+    }
+}
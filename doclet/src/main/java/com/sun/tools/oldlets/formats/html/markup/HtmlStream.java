@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package com.sun.tools.oldlets.formats.html.markup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import com.sun.tools.oldlets.internal.toolkit.*;
+
+/**
+ * Writes a page as it is built. Keeps the stack of elements whose start
+ * tag has already been written. Their content is written and removed as
+ * soon as it is added, the content following the streamed element in its
+ * wrappers is written when the element gets closed.
+ *
+ *  <p><b>This is NOT part of any supported API.
+ *  If you write code that depends on this, you do so at your own risk.
+ *  This code and its internal interfaces are subject to change or
+ *  deletion without notice.</b>
+ */
+public class HtmlStream {
+    private final Writer out;
+    private final Deque<Frame> open = new ArrayDeque<Frame>();
+    private boolean atNewline = true;
+    private IOException error;
+
+    private HtmlStream(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Start streaming a page.
+     *
+     * @param out the writer to write the page to
+     * @param inner the element the content of the returned stream is added to
+     * @param document creates the whole page around the inner element
+     * @return stream adding content to the inner element
+     */
+    public static ContentStream create(Writer out, Content inner, UnaryOperator<Content> document) {
+        return new HtmlStream(out).new Section(null, inner, document);
+    }
+
+    private void write(Content c) {
+        if (error != null) {
+            return;
+        }
+        try {
+            atNewline = c.write(out, atNewline);
+        } catch (IOException ex) {
+            error = ex;
+        }
+    }
+
+    /**
+     * Starts the elements on the path. The content preceding the next
+     * element on the path is written, the content of the last one is
+     * written as well. Written content is removed from the elements.
+     */
+    private void start(List<Content> path) {
+        for (int i = 0; i < path.size(); i++) {
+            Content c = path.get(i);
+            if (c instanceof HtmlTree && error == null) {
+                try {
+                    atNewline = ((HtmlTree) c).writeStartTag(out, atNewline);
+                } catch (IOException ex) {
+                    error = ex;
+                }
+            }
+            open.push(new Frame(c));
+            if (i + 1 < path.size()) {
+                List<Content> children = children(c);
+                Content nested = path.get(i + 1);
+                int at = 0;
+                while (children.get(at) != nested) {
+                    write(children.get(at++));
+                }
+                children.subList(0, at + 1).clear();
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Writes the content added to the innermost element and releases it.
+     */
+    private void flush() {
+        List<Content> children = children(open.peek().element);
+        for (Content c : children) {
+            write(c);
+        }
+        children.clear();
+    }
+
+    /**
+     * Writes the rest of the given number of innermost elements.
+     */
+    private void end(int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            flush();
+            Frame f = open.pop();
+            if (f.element instanceof HtmlTree && error == null) {
+                atNewline = ((HtmlTree) f.element).writeEndTag(out);
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private static boolean find(Content from, Content what, List<Content> path) {
+        path.add(from);
+        if (from == what) {
+            return true;
+        }
+        for (Content c : children(from)) {
+            if (find(c, what, path)) {
+                return true;
+            }
+        }
+        path.remove(path.size() - 1);
+        return false;
+    }
+
+    private static List<Content> children(Content c) {
+        if (c instanceof HtmlTree) {
+            return ((HtmlTree) c).children();
+        } else if (c instanceof HtmlDocument) {
+            return ((HtmlDocument) c).children();
+        } else if (c instanceof ContentBuilder) {
+            return ((ContentBuilder) c).children();
+        } else {
+            return Collections.<Content>emptyList();
+        }
+    }
+
+    private static final class Frame {
+        final Content element;
+
+        Frame(Content element) {
+            this.element = element;
+        }
+    }
+
+    private final class Section extends ContentStream {
+        private final Section parent;
+        private final Content inner;
+        private final UnaryOperator<Content> wrapper;
+        private Content outer;
+        private int depth = -1;
+
+        Section(Section parent, Content inner, UnaryOperator<Content> wrapper) {
+            this.parent = parent;
+            this.inner = inner;
+            this.wrapper = wrapper;
+        }
+
+        @Override
+        public ContentStream open(Content nested, UnaryOperator<Content> nestedWrapper) {
+            return new Section(this, nested, nestedWrapper);
+        }
+
+        @Override
+        public void addContent(Content content) {
+            inner.addContent(content);
+            update();
+        }
+
+        @Override
+        public void addContent(String stringContent) {
+            inner.addContent(stringContent);
+            update();
+        }
+
+        /**
+         * Writes the added content of a started section. A nested section
+         * starts once it gets valid content. The page itself starts with
+         * its first nested section, as the content added before, like the
+         * member summaries, may still modify the page header.
+         */
+        private void update() {
+            if (depth >= 0) {
+                flush();
+            } else if (parent != null && inner.isValid()) {
+                start();
+            }
+        }
+
+        /**
+         * Starts this section together with all the enclosing sections
+         * that have not been started yet. Their wrappers are created
+         * from the innermost one, as only then the enclosing elements
+         * have some content.
+         */
+        private void start() {
+            List<Section> chain = new ArrayList<Section>();
+            Content outer = null;
+            for (Section s = this; s != null && s.depth < 0; s = s.parent) {
+                if (outer != null) {
+                    s.inner.addContent(outer);
+                }
+                outer = s.wrapper.apply(s.inner);
+                s.outer = outer;
+                chain.add(0, s);
+            }
+            List<Content> path = new ArrayList<Content>();
+            for (Section s : chain) {
+                int from = path.size();
+                if (!find(s.outer, s.inner, path)) {
+                    throw new IllegalStateException("Wrapper does not contain the streamed element");
+                }
+                s.depth = path.size() - from;
+                s.outer = null;
+            }
+            HtmlStream.this.start(path);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (depth >= 0) {
+                end(depth);
+            } else if (parent == null) {
+                HtmlStream.this.write(wrapper.apply(inner));
+                end(0);
+            } else {
+                parent.addContent(wrapper.apply(inner));
+            }
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return depth < 0 && inner.isEmpty();
+        }
+    }
+}
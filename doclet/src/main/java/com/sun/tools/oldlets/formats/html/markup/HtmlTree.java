@@ -28,7 +28,6 @@ package com.sun.tools.oldlets.formats.html.markup;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.*;
-import java.nio.charset.*;
 
 import com.sun.tools.oldlets.internal.toolkit.Content;
 import com.sun.tools.oldlets.internal.toolkit.util.*;
@@ -133,6 +132,13 @@ public class HtmlTree extends Content {
             addContent(new StringContent(stringContent));
     }
 
+    /**
+     * The content added to this tree.
+     */
+    List<Content> children() {
+        return content;
+    }
+
     public int charCount() {
         int n = 0;
         for (Content c : content)
@@ -148,25 +154,7 @@ public class HtmlTree extends Content {
      * @return the original string with all of the HTML characters escaped.
      */
     private static String escapeHtmlChars(String s) {
-        for (int i = 0; i < s.length(); i++) {
-            char ch = s.charAt(i);
-            switch (ch) {
-                // only start building a new string if we need to
-                case '<': case '>': case '&':
-                    StringBuilder sb = new StringBuilder(s.substring(0, i));
-                    for ( ; i < s.length(); i++) {
-                        ch = s.charAt(i);
-                        switch (ch) {
-                            case '<': sb.append("&lt;");  break;
-                            case '>': sb.append("&gt;");  break;
-                            case '&': sb.append("&amp;"); break;
-                            default:  sb.append(ch);      break;
-                        }
-                    }
-                    return sb.toString();
-            }
-        }
-        return s;
+        return HtmlEncoding.escapeHtmlChars(s);
     }
 
     /**
@@ -175,38 +163,15 @@ public class HtmlTree extends Content {
     public static final BitSet NONENCODING_CHARS = new BitSet(256);
 
     static {
-        // alphabetic characters
-        for (int i = 'a'; i <= 'z'; i++) {
-            NONENCODING_CHARS.set(i);
-        }
-        for (int i = 'A'; i <= 'Z'; i++) {
-            NONENCODING_CHARS.set(i);
-        }
-        // numeric characters
-        for (int i = '0'; i <= '9'; i++) {
-            NONENCODING_CHARS.set(i);
-        }
-        // Reserved characters as per RFC 3986. These are set of delimiting characters.
-        String noEnc = ":/?#[]@!$&'()*+,;=";
-        // Unreserved characters as per RFC 3986 which should not be percent encoded.
-        noEnc += "-._~";
-        for (int i = 0; i < noEnc.length(); i++) {
-            NONENCODING_CHARS.set(noEnc.charAt(i));
+        for (int i = 0; i < 128; i++) {
+            if (HtmlEncoding.isNonEncoding(i)) {
+                NONENCODING_CHARS.set(i);
+            }
         }
     }
 
     private static String encodeURL(String url) {
-        byte[] urlBytes = url.getBytes(Charset.forName("UTF-8"));
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < urlBytes.length; i++) {
-            int c = urlBytes[i];
-            if (NONENCODING_CHARS.get(c & 0xFF)) {
-                sb.append((char) c);
-            } else {
-                sb.append(String.format("%%%02X", c & 0xFF));
-            }
-        }
-        return sb.toString();
+        return HtmlEncoding.encodeURL(url);
     }
 
     /**
@@ -813,6 +778,21 @@ public class HtmlTree extends Content {
      */
     @Override
     public boolean write(Writer out, boolean atNewline) throws IOException {
+        writeStartTag(out, atNewline);
+        boolean nl = false;
+        for (Content c : content)
+            nl = c.write(out, nl);
+        return writeEndTag(out);
+    }
+
+    /**
+     * Writes the start tag with all the attributes.
+     *
+     * @param out the writer
+     * @param atNewline whether the output is at the start of a line
+     * @return whether the output is at the start of a line, never true
+     */
+    boolean writeStartTag(Writer out, boolean atNewline) throws IOException {
         if (!isInline() && !atNewline)
             out.write(DocletConstants.NL);
         String tagString = htmlTag.toString();
@@ -833,9 +813,17 @@ public class HtmlTree extends Content {
             }
         }
         out.write(">");
-        boolean nl = false;
-        for (Content c : content)
-            nl = c.write(out, nl);
+        return false;
+    }
+
+    /**
+     * Writes the end tag, if required.
+     *
+     * @param out the writer
+     * @return whether the output is at the start of a line
+     */
+    boolean writeEndTag(Writer out) throws IOException {
+        String tagString = htmlTag.toString();
         if (htmlTag.endTagRequired()) {
             out.write("</");
             out.write(tagString);
@@ -27,6 +27,7 @@ package com.sun.tools.oldlets.formats.html.markup;
 
 import java.io.*;
 import java.util.*;
+import java.util.function.UnaryOperator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -241,12 +242,30 @@ public class HtmlWriter {
     }
 
     public void write(Content c) throws IOException {
+        if (configuration.pageWriterPool != null) {
+            configuration.pageWriterPool.write(file, c);
+            return;
+        }
         writer = file.openWriter();
         c.write(writer, true);
     }
 
+    /**
+     * Start writing the document while it is being built.
+     *
+     * @param inner the element the content of the returned stream is added to
+     * @param document creates the whole document around the inner element
+     * @return stream adding content to the inner element
+     */
+    public ContentStream openStream(Content inner, UnaryOperator<Content> document) throws IOException {
+        writer = file.openWriter();
+        return HtmlStream.create(writer, inner, document);
+    }
+
     public void close() throws IOException {
-        writer.close();
+        if (writer != null) {
+            writer.close();
+        }
     }
 
     /**
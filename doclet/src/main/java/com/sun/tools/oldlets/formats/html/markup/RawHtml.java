@@ -44,6 +44,7 @@ import com.sun.tools.oldlets.internal.toolkit.util.*;
 public class RawHtml extends Content {
 
     private String rawHtmlContent;
+    private int charCount = -1;
 
     public static final Content nbsp = new RawHtml("&nbsp;");
 
@@ -99,7 +100,10 @@ public class RawHtml extends Content {
 
     @Override
     public int charCount() {
-        return charCount(rawHtmlContent);
+        if (charCount < 0) {
+            charCount = charCount(rawHtmlContent);
+        }
+        return charCount;
     }
 
     static int charCount(String htmlText) {
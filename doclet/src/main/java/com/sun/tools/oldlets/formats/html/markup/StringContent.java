@@ -44,6 +44,7 @@ import com.sun.tools.oldlets.internal.toolkit.util.*;
 public class StringContent extends Content {
 
     private StringBuilder stringContent;
+    private int charCount;
 
     /**
      * Constructor to construct StringContent object.
@@ -96,7 +97,7 @@ public class StringContent extends Content {
 
     @Override
     public int charCount() {
-        return RawHtml.charCount(stringContent.toString());
+        return charCount;
     }
 
     /**
@@ -117,15 +118,12 @@ public class StringContent extends Content {
         return s.endsWith(DocletConstants.NL);
     }
 
+    /**
+     * Escapes and appends the string. Every character added counts
+     * as one, the escaped ones are rendered as a single character.
+     */
     private void appendChars(String s) {
-        for (int i = 0; i < s.length(); i++) {
-            char ch = s.charAt(i);
-            switch (ch) {
-                case '<': stringContent.append("&lt;");  break;
-                case '>': stringContent.append("&gt;");  break;
-                case '&': stringContent.append("&amp;"); break;
-                default:  stringContent.append(ch);      break;
-            }
-        }
+        HtmlEncoding.escapeHtmlChars(s, stringContent);
+        charCount += s.length();
     }
 }
@@ -49,6 +49,11 @@ public abstract class AbstractDoclet {
      */
     public Configuration configuration;
 
+    /**
+     * The time the current phase of the generation started at.
+     */
+    private long phaseStart;
+
     /**
      * The only doclet that may use this toolkit is {@value}
      */
@@ -137,19 +142,60 @@ public abstract class AbstractDoclet {
         configuration.setOptions();
         configuration.getDocletSpecificMsg().notice("doclet.build_version",
             configuration.getDocletSpecificBuildDate());
+        phaseStart = System.nanoTime();
         ClassTree classtree = new ClassTree(configuration, configuration.nodeprecated);
+        reportPhase("class tree");
 
-        generateClassFiles(root, classtree);
-        Util.copyDocFiles(configuration, DocPaths.DOC_FILES);
+        PageWriterPool pool = configuration.writethreads > 1 ?
+                new PageWriterPool(configuration, configuration.writethreads) : null;
+        configuration.pageWriterPool = pool;
+        configuration.pageFingerprints = PageFingerprints.load(configuration);
+        configuration.visibleMemberCache = new VisibleMemberCache(configuration);
+        try {
+            generateClassFiles(root, classtree);
+            reportPhase("class pages");
+            Util.copyDocFiles(configuration, DocPaths.DOC_FILES);
 
-        PackageListWriter.generate(configuration);
-        generatePackageFiles(classtree);
-        generateProfileFiles();
+            PackageListWriter.generate(configuration);
+            generatePackageFiles(classtree);
+            generateProfileFiles();
+            reportPhase("package pages");
 
-        generateOtherFiles(root, classtree);
+            generateOtherFiles(root, classtree);
+            if (pool != null) {
+                pool.finish();
+                reportPhase("remaining page writes");
+            }
+            if (configuration.pageFingerprints != null) {
+                configuration.pageFingerprints.save();
+            }
+            DocFile.finishOutput(configuration);
+        } finally {
+            configuration.pageFingerprints = null;
+            configuration.visibleMemberCache = null;
+            configuration.pageWriterPool = null;
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
         configuration.tagletManager.printReport();
     }
 
+    /**
+     * Report the time spent since the previous phase of the generation
+     * ended, if the "-phasetimes" option is used.
+     *
+     * @param name the name of the phase that just ended
+     */
+    protected void reportPhase(String name) {
+        long now = System.nanoTime();
+        if (configuration.phasetimes) {
+            configuration.message.notice("doclet.Phase_time", name,
+                (now - phaseStart) / 1000000L);
+        }
+        phaseStart = now;
+    }
+
     /**
      * Generate additional documentation that is added to the API documentation.
      *
@@ -189,6 +189,17 @@ public interface ClassWriter {
      */
     public void printDocument(Content contentTree) throws IOException;
 
+    /**
+     * Start writing the document before the class content is built. The
+     * footer is added after the class content, the document is written
+     * when the returned stream is closed.
+     *
+     * @param contentTree content tree returned by {@link #getHeader(String)}
+     * @param classContentTree content tree returned by {@link #getClassContentHeader()}
+     * @return stream to add the class content to
+     */
+    public ContentStream startDocument(Content contentTree, Content classContentTree) throws IOException;
+
     /**
      * Close the writer.
      */
@@ -119,6 +119,54 @@ public abstract class Configuration {
      */
     public boolean linksource = false;
 
+    /**
+     * Number of threads writing the generated pages, set by the
+     * "-writethreads" option. One writes every page as soon as it is built.
+     */
+    public int writethreads = 1;
+
+    /**
+     * Writes the pages on worker threads when {@link #writethreads} is
+     * greater than one, otherwise null.
+     */
+    public PageWriterPool pageWriterPool;
+
+    /**
+     * True if command line option "-streampages" is used. Class pages
+     * are then written while they are being built.
+     */
+    public boolean streampages = false;
+
+    /**
+     * True if command line option "-incremental" is used. Pages that
+     * have not changed since the previous run are then not generated.
+     */
+    public boolean incremental = false;
+
+    /**
+     * Fingerprints of the pages when {@link #incremental} is set,
+     * otherwise null.
+     */
+    public PageFingerprints pageFingerprints;
+
+    /**
+     * The visible members of the classes computed during the generation,
+     * shared by the builders. Null outside of the generation.
+     */
+    public VisibleMemberCache visibleMemberCache;
+
+    /**
+     * True if command line option "-keepunchanged" is used. Output files
+     * are then replaced only when their content changes.
+     */
+    public boolean keepunchanged = false;
+
+    /**
+     * True if command line option "-phasetimes" is used. The time spent
+     * in each phase of the generation is then reported.
+     */
+    public boolean phasetimes = false;
+
     /**
      * True if command line option "-nosince" is used. Default value is
      * false.
@@ -168,6 +216,31 @@ public abstract class Configuration {
      */
     public String destDirName = "";
 
+    /**
+     * Name of the zip or jar archive the documentation is written to,
+     * when the "-d" option names a file ending with ".zip" or ".jar".
+     * Empty when the documentation is written to {@link #destDirName}.
+     */
+    public String destArchiveName = "";
+
+    /**
+     * Directory keeping the package lists of the "-link" options, set by
+     * the "-linkcache" option. Empty when the lists are not cached.
+     */
+    public String linkcache = "";
+
+    /**
+     * Minutes a cached package list is used without fetching it again,
+     * set by the "-linkcachettl" option.
+     */
+    public long linkcachettl = 24 * 60;
+
+    /**
+     * True if command line option "-linkcacheoffline" is used. Only the
+     * package lists in the {@link #linkcache} are then used.
+     */
+    public boolean linkcacheoffline = false;
+
     /**
      * Destination directory name, in which doclet will copy the doc-files to.
      */
@@ -352,22 +425,30 @@ public abstract class Configuration {
         option = StringUtils.toLowerCase(option);
         if (option.equals("-author") ||
             option.equals("-docfilessubdirs") ||
+            option.equals("-incremental") ||
             option.equals("-javafx") ||
+            option.equals("-keepunchanged") ||
             option.equals("-keywords") ||
+            option.equals("-linkcacheoffline") ||
             option.equals("-linksource") ||
             option.equals("-nocomment") ||
             option.equals("-nodeprecated") ||
             option.equals("-nosince") ||
             option.equals("-notimestamp") ||
+            option.equals("-phasetimes") ||
+            option.equals("-streampages") ||
             option.equals("-quiet") ||
             option.equals("-xnodate") ||
             option.equals("-version")) {
             return 1;
         } else if (option.equals("-d") ||
                    option.equals("-docencoding") ||
+                   option.equals("-writethreads") ||
                    option.equals("-encoding") ||
                    option.equals("-excludedocfilessubdir") ||
                    option.equals("-link") ||
+                   option.equals("-linkcache") ||
+                   option.equals("-linkcachettl") ||
                    option.equals("-sourcetab") ||
                    option.equals("-noqualifier") ||
                    option.equals("-output") ||
@@ -468,6 +549,11 @@ public abstract class Configuration {
             String[] os = options[oi];
             String opt = StringUtils.toLowerCase(os[0]);
             if (opt.equals("-d")) {
+                if (isArchiveName(os[1])) {
+                    // the archive and its directory are created with the first page
+                    destArchiveName = os[1];
+                    break;
+                }
                 destDirName = addTrailingFileSep(os[1]);
                 docFileDestDirName = destDirName;
                 ensureOutputDirExists();
@@ -475,6 +561,34 @@ public abstract class Configuration {
             }
         }
 
+        // The package lists of all the links are fetched in parallel,
+        // then read one by one in the order of the options.
+        List<String> pkglisturls = new ArrayList<String>();
+        for (int oi = 0; oi < options.length; ++oi) {
+            String[] os = options[oi];
+            String opt = StringUtils.toLowerCase(os[0]);
+            if (opt.equals("-linkcache")) {
+                linkcache = os[1];
+            } else if (opt.equals("-linkcachettl")) {
+                try {
+                    linkcachettl = Long.parseLong(os[1]);
+                } catch (NumberFormatException e) {
+                    linkcachettl = -1;
+                }
+                if (linkcachettl < 0) {
+                    message.warning("doclet.linkcachettl_warning");
+                    linkcachettl = 24 * 60;
+                }
+            } else if (opt.equals("-linkcacheoffline")) {
+                linkcacheoffline = true;
+            } else if (opt.equals("-link")) {
+                pkglisturls.add(os[1]);
+            } else if (opt.equals("-linkoffline")) {
+                pkglisturls.add(os[2]);
+            }
+        }
+        extern.prefetch(pkglisturls);
+
         for (int oi = 0; oi < options.length; ++oi) {
             String[] os = options[oi];
             String opt = StringUtils.toLowerCase(os[0]);
@@ -518,6 +632,24 @@ public abstract class Configuration {
                     message.warning("doclet.sourcetab_warning");
                     setTabWidth(DocletConstants.DEFAULT_TAB_STOP_LENGTH);
                 }
+            } else if (opt.equals("-writethreads")) {
+                try {
+                    writethreads = Integer.parseInt(os[1]);
+                } catch (NumberFormatException e) {
+                    writethreads = -1;
+                }
+                if (writethreads <= 0) {
+                    message.warning("doclet.writethreads_warning");
+                    writethreads = 1;
+                }
+            } else if (opt.equals("-incremental")) {
+                incremental = true;
+            } else if (opt.equals("-keepunchanged")) {
+                keepunchanged = true;
+            } else if (opt.equals("-phasetimes")) {
+                phasetimes = true;
+            } else if (opt.equals("-streampages")) {
+                streampages = true;
             } else if (opt.equals("-notimestamp")) {
                 notimestamp = true;
             } else if (opt.equals("-nocomment")) {
@@ -573,6 +705,11 @@ public abstract class Configuration {
         setSpecificDocletOptions(root.options());
     }
 
+    private static boolean isArchiveName(String name) {
+        String lower = StringUtils.toLowerCase(name);
+        return lower.endsWith(".zip") || lower.endsWith(".jar");
+    }
+
     private void ensureOutputDirExists() throws Fault {
         DocFile destDir = DocFile.createFileForDirectory(this, destDirName);
         if (!destDir.exists()) {
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package com.sun.tools.oldlets.internal.toolkit;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.function.UnaryOperator;
+
+import com.sun.tools.oldlets.internal.toolkit.util.*;
+
+/**
+ * Content of a page that is written out while the page is being built.
+ *
+ * A stream stands for an element of the page, all the elements enclosing
+ * it have already been started in the output. Content added to the
+ * stream must be complete, it is written out and released right away,
+ * so only the chain of open elements is kept in memory. Nested elements
+ * are streamed by {@link #open(Content, UnaryOperator)}, the rest of the
+ * element is written by {@link #close()}.
+ *
+ * The written bytes are the same as if the whole tree was built first and
+ * written at the end. Errors are remembered and thrown from {@link #close()}.
+ *
+ *  <p><b>This is NOT part of any supported API.
+ *  If you write code that depends on this, you do so at your own risk.
+ *  This code and its internal interfaces are subject to change or
+ *  deletion without notice.</b>
+ */
+public abstract class ContentStream extends Content {
+
+    /**
+     * Stream content of a nested element. The element is added to this
+     * stream wrapped by the wrapper once it gets valid content, just like
+     * {@code addContent(wrapper.apply(inner))} would do after the whole
+     * inner element is built.
+     *
+     * @param inner the element to be filled by the returned stream
+     * @param wrapper creates the content to add to this stream around the
+     *     inner element
+     * @return stream adding content to the inner element
+     */
+    public abstract ContentStream open(Content inner, UnaryOperator<Content> wrapper);
+
+    /**
+     * Write the rest of the element and of its wrappers.
+     *
+     * @throws IOException if any of the content could not be written
+     */
+    public abstract void close() throws IOException;
+
+    /**
+     * Stream the inner element if the parent is a stream.
+     *
+     * @param parent the content the inner element will be added to
+     * @param inner the element to be filled
+     * @param wrapper creates the content to add to the parent
+     * @return the content to add the content of the inner element to
+     */
+    public static Content open(Content parent, Content inner, UnaryOperator<Content> wrapper) {
+        if (parent instanceof ContentStream) {
+            return ((ContentStream) parent).open(inner, wrapper);
+        }
+        return inner;
+    }
+
+    /**
+     * Finish the content returned from {@link #open(Content, Content, UnaryOperator)}.
+     * Closes the stream or adds the wrapped element to the parent.
+     *
+     * @param parent the content the inner element is added to
+     * @param inner the value returned from {@code open}
+     * @param wrapper creates the content to add to the parent
+     */
+    public static void close(Content parent, Content inner, UnaryOperator<Content> wrapper) throws IOException {
+        if (inner instanceof ContentStream) {
+            ((ContentStream) inner).close();
+        } else {
+            parent.addContent(wrapper.apply(inner));
+        }
+    }
+
+    /**
+     * Streams cannot be written again.
+     */
+    @Override
+    public boolean write(Writer writer, boolean atNewline) throws IOException {
+        throw new DocletAbortException("not supported");
+    }
+}
@@ -26,6 +26,9 @@
 package com.sun.tools.oldlets.internal.toolkit.builders;
 
 import java.io.*;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.*;
 import java.util.*;
 
@@ -130,33 +133,73 @@ public abstract class AbstractBuilder {
      * @param contentTree content tree to which the documentation will be added
      */
     protected void build(XMLNode node, Content contentTree) {
-        String component = node.name;
+        XMLNode.Handler handler = node.handler;
+        if (handler == null || handler.builder != getClass()) {
+            handler = new XMLNode.Handler(getClass(), findBuildMethod(node.name));
+            node.handler = handler;
+        }
+        if (DEBUG) {
+            configuration.root.printError("DEBUG: " + this.getClass().getName() + ".build" + node.name);
+        }
         try {
-            invokeMethod("build" + component,
-                    new Class<?>[]{XMLNode.class, Content.class},
-                    new Object[]{node, contentTree});
-        } catch (NoSuchMethodException e) {
+            handler.method.invokeExact(this, node, contentTree);
+        } catch (FatalError | DocletAbortException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new DocletAbortException(t);
+        }
+    }
+
+    /**
+     * Find the method of this builder building the given element of
+     * the builder XML file.
+     *
+     * @param component the name of the element
+     * @return handle of the build method accepting the builder, the
+     *         element and the content tree
+     */
+    private MethodHandle findBuildMethod(String component) {
+        MethodHandle method = BUILD_METHODS.get(getClass()).get("build" + component);
+        if (method == null) {
+            NoSuchMethodException e = new NoSuchMethodException(
+                    getClass().getName() + ".build" + component);
             e.printStackTrace();
             configuration.root.printError("Unknown element: " + component);
             throw new DocletAbortException(e);
-        } catch (InvocationTargetException e) {
-            Throwable cause = e.getCause();
-            if (cause instanceof FatalError) {
-                throw (FatalError) cause;
-            } else if (cause instanceof DocletAbortException) {
-                throw (DocletAbortException) cause;
-            } else {
-                throw new DocletAbortException(cause);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            configuration.root.printError("Exception " +
-                    e.getClass().getName() +
-                    " thrown while processing element: " + component);
-            throw new DocletAbortException(e);
         }
+        return method;
     }
 
+    /**
+     * The public build methods of each builder class by their names,
+     * resolved once for all the pages and elements.
+     */
+    private static final ClassValue<Map<String,MethodHandle>> BUILD_METHODS =
+            new ClassValue<Map<String,MethodHandle>>() {
+        @Override
+        protected Map<String,MethodHandle> computeValue(Class<?> type) {
+            MethodType buildType = MethodType.methodType(void.class,
+                    AbstractBuilder.class, XMLNode.class, Content.class);
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            Map<String,MethodHandle> methods = new HashMap<String,MethodHandle>();
+            for (Method m : type.getMethods()) {
+                if (!m.getName().startsWith("build")
+                        || Modifier.isStatic(m.getModifiers())
+                        || !Arrays.equals(m.getParameterTypes(), BUILD_PARAMETERS)) {
+                    continue;
+                }
+                try {
+                    methods.put(m.getName(), lookup.unreflect(m).asType(buildType));
+                } catch (IllegalAccessException ex) {
+                    // not accessible, reported as unknown element when used
+                }
+            }
+            return methods;
+        }
+    };
+
+    private static final Class<?>[] BUILD_PARAMETERS = { XMLNode.class, Content.class };
+
     /**
      * Build the documentation, as specified by the children of the given XML element.
      *
@@ -167,23 +210,4 @@ public abstract class AbstractBuilder {
         for (XMLNode child : node.children)
             build(child, contentTree);
     }
-
-    /**
-     * Given the name and parameters, invoke the method in the builder.  This
-     * method is required to invoke the appropriate build method as instructed
-     * by the builder XML file.
-     *
-     * @param methodName   the name of the method that we would like to invoke.
-     * @param paramClasses the types for each parameter.
-     * @param params       the parameters of the method.
-     */
-    protected void invokeMethod(String methodName, Class<?>[] paramClasses,
-            Object[] params)
-    throws Exception {
-        if (DEBUG) {
-            configuration.root.printError("DEBUG: " + this.getClass().getName() + "." + methodName);
-        }
-        Method method = this.getClass().getMethod(methodName, paramClasses);
-        method.invoke(this, params);
-    }
 }
@@ -87,7 +87,7 @@ public class AnnotationTypeRequiredMemberBuilder extends AbstractMemberBuilder {
         super(context);
         this.classDoc = classDoc;
         this.writer = writer;
-        this.visibleMemberMap = new VisibleMemberMap(classDoc, memberType,
+        this.visibleMemberMap = VisibleMemberMap.getInstance(classDoc, memberType,
             configuration);
         this.members = new ArrayList<ProgramElementDoc>(
             this.visibleMemberMap.getMembersFor(classDoc));
@@ -146,10 +146,16 @@ public class ClassBuilder extends AbstractBuilder {
          contentTree = writer.getHeader(configuration.getText(key) + " " +
                  classDoc.name());
          Content classContentTree = writer.getClassContentHeader();
-         buildChildren(node, classContentTree);
-         contentTree.addContent(classContentTree);
-         writer.addFooter(contentTree);
-         writer.printDocument(contentTree);
+         if (configuration.streampages) {
+             ContentStream stream = writer.startDocument(contentTree, classContentTree);
+             buildChildren(node, stream);
+             stream.close();
+         } else {
+             buildChildren(node, classContentTree);
+             contentTree.addContent(classContentTree);
+             writer.addFooter(contentTree);
+             writer.printDocument(contentTree);
+         }
          writer.close();
          copyDocFiles();
      }
@@ -352,10 +358,13 @@ public class ClassBuilder extends AbstractBuilder {
      * @param node the XML element that specifies which components to document
      * @param classContentTree the content tree to which the documentation will be added
      */
-    public void buildMemberDetails(XMLNode node, Content classContentTree) {
-        Content memberDetailsTree = writer.getMemberTreeHeader();
+    public void buildMemberDetails(XMLNode node, Content classContentTree)
+            throws IOException {
+        Content memberDetailsTree = ContentStream.open(classContentTree,
+                writer.getMemberTreeHeader(), writer::getMemberDetailsTree);
         buildChildren(node, memberDetailsTree);
-        classContentTree.addContent(writer.getMemberDetailsTree(memberDetailsTree));
+        ContentStream.close(classContentTree, memberDetailsTree,
+                writer::getMemberDetailsTree);
     }
 
     /**
@@ -267,7 +267,7 @@ public class ConstantsSummaryBuilder extends AbstractBuilder {
      * @return true if the given package has constant fields to document.
      */
     private boolean hasConstantField (ClassDoc classDoc) {
-        VisibleMemberMap visibleMemberMapFields = new VisibleMemberMap(classDoc,
+        VisibleMemberMap visibleMemberMapFields = VisibleMemberMap.getInstance(classDoc,
             VisibleMemberMap.FIELDS, configuration);
         List<?> fields = visibleMemberMapFields.getLeafClassMembers(configuration);
         for (Iterator<?> iter = fields.iterator(); iter.hasNext(); ) {
@@ -325,9 +325,9 @@ public class ConstantsSummaryBuilder extends AbstractBuilder {
          */
         public ConstantFieldBuilder(ClassDoc classdoc) {
             this.classdoc = classdoc;
-            visibleMemberMapFields = new VisibleMemberMap(classdoc,
+            visibleMemberMapFields = VisibleMemberMap.getInstance(classdoc,
                 VisibleMemberMap.FIELDS, configuration);
-            visibleMemberMapEnumConst = new VisibleMemberMap(classdoc,
+            visibleMemberMapEnumConst = VisibleMemberMap.getInstance(classdoc,
                 VisibleMemberMap.ENUM_CONSTANTS, configuration);
         }
 
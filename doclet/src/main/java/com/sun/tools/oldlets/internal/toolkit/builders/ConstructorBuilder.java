@@ -28,6 +28,7 @@ package com.sun.tools.oldlets.internal.toolkit.builders;
 import com.sun.javadoc.ClassDoc;
 import com.sun.javadoc.ConstructorDoc;
 import com.sun.javadoc.ProgramElementDoc;
+import java.io.IOException;
 import java.util.*;
 
 import com.sun.tools.oldlets.internal.toolkit.*;
@@ -92,7 +93,7 @@ public class ConstructorBuilder extends AbstractMemberBuilder {
         this.classDoc = classDoc;
         this.writer = writer;
         visibleMemberMap =
-                new VisibleMemberMap(
+                VisibleMemberMap.getInstance(
                 classDoc,
                 VisibleMemberMap.CONSTRUCTORS,
                 configuration);
@@ -161,14 +162,16 @@ public class ConstructorBuilder extends AbstractMemberBuilder {
      * @param node the XML element that specifies which components to document
      * @param memberDetailsTree the content tree to which the documentation will be added
      */
-    public void buildConstructorDoc(XMLNode node, Content memberDetailsTree) {
+    public void buildConstructorDoc(XMLNode node, Content memberDetailsTree)
+            throws IOException {
         if (writer == null) {
             return;
         }
         int size = constructors.size();
         if (size > 0) {
-            Content constructorDetailsTree = writer.getConstructorDetailsTreeHeader(
-                    classDoc, memberDetailsTree);
+            Content constructorDetailsTree = ContentStream.open(memberDetailsTree,
+                    writer.getConstructorDetailsTreeHeader(classDoc, memberDetailsTree),
+                    writer::getConstructorDetails);
             for (currentConstructorIndex = 0; currentConstructorIndex < size;
                     currentConstructorIndex++) {
                 Content constructorDocTree = writer.getConstructorDocTreeHeader(
@@ -178,8 +181,8 @@ public class ConstructorBuilder extends AbstractMemberBuilder {
                 constructorDetailsTree.addContent(writer.getConstructorDoc(
                         constructorDocTree, (currentConstructorIndex == size - 1)));
             }
-            memberDetailsTree.addContent(
-                    writer.getConstructorDetails(constructorDetailsTree));
+            ContentStream.close(memberDetailsTree, constructorDetailsTree,
+                    writer::getConstructorDetails);
         }
     }
 
@@ -28,6 +28,7 @@ package com.sun.tools.oldlets.internal.toolkit.builders;
 import com.sun.javadoc.ClassDoc;
 import com.sun.javadoc.ProgramElementDoc;
 import com.sun.javadoc.FieldDoc;
+import java.io.IOException;
 import java.util.*;
 
 import com.sun.tools.oldlets.internal.toolkit.*;
@@ -86,7 +87,7 @@ public class EnumConstantBuilder extends AbstractMemberBuilder {
         this.classDoc = classDoc;
         this.writer = writer;
         visibleMemberMap =
-                new VisibleMemberMap(
+                VisibleMemberMap.getInstance(
                 classDoc,
                 VisibleMemberMap.ENUM_CONSTANTS,
                 configuration);
@@ -150,14 +151,16 @@ public class EnumConstantBuilder extends AbstractMemberBuilder {
      * @param node the XML element that specifies which components to document
      * @param memberDetailsTree the content tree to which the documentation will be added
      */
-    public void buildEnumConstant(XMLNode node, Content memberDetailsTree) {
+    public void buildEnumConstant(XMLNode node, Content memberDetailsTree)
+            throws IOException {
         if (writer == null) {
             return;
         }
         int size = enumConstants.size();
         if (size > 0) {
-            Content enumConstantsDetailsTree = writer.getEnumConstantsDetailsTreeHeader(
-                    classDoc, memberDetailsTree);
+            Content enumConstantsDetailsTree = ContentStream.open(memberDetailsTree,
+                    writer.getEnumConstantsDetailsTreeHeader(classDoc, memberDetailsTree),
+                    writer::getEnumConstantsDetails);
             for (currentEnumConstantsIndex = 0; currentEnumConstantsIndex < size;
                     currentEnumConstantsIndex++) {
                 Content enumConstantsTree = writer.getEnumConstantsTreeHeader(
@@ -167,8 +170,8 @@ public class EnumConstantBuilder extends AbstractMemberBuilder {
                 enumConstantsDetailsTree.addContent(writer.getEnumConstants(
                         enumConstantsTree, (currentEnumConstantsIndex == size - 1)));
             }
-            memberDetailsTree.addContent(
-                    writer.getEnumConstantsDetails(enumConstantsDetailsTree));
+            ContentStream.close(memberDetailsTree, enumConstantsDetailsTree,
+                    writer::getEnumConstantsDetails);
         }
     }
 
@@ -28,6 +28,7 @@ package com.sun.tools.oldlets.internal.toolkit.builders;
 import com.sun.javadoc.ClassDoc;
 import com.sun.javadoc.ProgramElementDoc;
 import com.sun.javadoc.FieldDoc;
+import java.io.IOException;
 import java.util.*;
 
 import com.sun.tools.oldlets.internal.toolkit.*;
@@ -87,7 +88,7 @@ public class FieldBuilder extends AbstractMemberBuilder {
         this.classDoc = classDoc;
         this.writer = writer;
         visibleMemberMap =
-                new VisibleMemberMap(
+                VisibleMemberMap.getInstance(
                 classDoc,
                 VisibleMemberMap.FIELDS,
                 configuration);
@@ -153,14 +154,16 @@ public class FieldBuilder extends AbstractMemberBuilder {
      * @param node the XML element that specifies which components to document
      * @param memberDetailsTree the content tree to which the documentation will be added
      */
-    public void buildFieldDoc(XMLNode node, Content memberDetailsTree) {
+    public void buildFieldDoc(XMLNode node, Content memberDetailsTree)
+            throws IOException {
         if (writer == null) {
             return;
         }
         int size = fields.size();
         if (size > 0) {
-            Content fieldDetailsTree = writer.getFieldDetailsTreeHeader(
-                    classDoc, memberDetailsTree);
+            Content fieldDetailsTree = ContentStream.open(memberDetailsTree,
+                    writer.getFieldDetailsTreeHeader(classDoc, memberDetailsTree),
+                    writer::getFieldDetails);
             for (currentFieldIndex = 0; currentFieldIndex < size;
                     currentFieldIndex++) {
                 Content fieldDocTree = writer.getFieldDocTreeHeader(
@@ -170,8 +173,8 @@ public class FieldBuilder extends AbstractMemberBuilder {
                 fieldDetailsTree.addContent(writer.getFieldDoc(
                         fieldDocTree, (currentFieldIndex == size - 1)));
             }
-            memberDetailsTree.addContent(
-                    writer.getFieldDetails(fieldDetailsTree));
+            ContentStream.close(memberDetailsTree, fieldDetailsTree,
+                    writer::getFieldDetails);
         }
     }
 
@@ -84,7 +84,7 @@ public class MemberSummaryBuilder extends AbstractMemberBuilder {
                 new VisibleMemberMap[VisibleMemberMap.NUM_MEMBER_TYPES];
         for (int i = 0; i < VisibleMemberMap.NUM_MEMBER_TYPES; i++) {
             visibleMemberMaps[i] =
-                    new VisibleMemberMap(
+                    VisibleMemberMap.getInstance(
                     classDoc,
                     i,
                     configuration);
@@ -489,7 +489,8 @@ public class MemberSummaryBuilder extends AbstractMemberBuilder {
             if (inhclass == classDoc) {
                 continue;
             }
-            List<ProgramElementDoc> inhmembers = visibleMemberMap.getMembersFor(inhclass);
+            List<ProgramElementDoc> inhmembers =
+                    new ArrayList<ProgramElementDoc>(visibleMemberMap.getMembersFor(inhclass));
             if (inhmembers.size() > 0) {
                 Collections.sort(inhmembers);
                 Content inheritedTree = writer.getInheritedSummaryHeader(inhclass);
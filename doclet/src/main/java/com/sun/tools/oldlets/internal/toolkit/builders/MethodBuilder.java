@@ -28,6 +28,7 @@ package com.sun.tools.oldlets.internal.toolkit.builders;
 import com.sun.javadoc.ClassDoc;
 import com.sun.javadoc.ProgramElementDoc;
 import com.sun.javadoc.MethodDoc;
+import java.io.IOException;
 import java.util.*;
 
 import com.sun.tools.oldlets.internal.toolkit.*;
@@ -87,7 +88,7 @@ public class MethodBuilder extends AbstractMemberBuilder {
         super(context);
         this.classDoc = classDoc;
         this.writer = writer;
-        visibleMemberMap = new VisibleMemberMap(
+        visibleMemberMap = VisibleMemberMap.getInstance(
                 classDoc,
                 VisibleMemberMap.METHODS,
                 configuration);
@@ -154,14 +155,16 @@ public class MethodBuilder extends AbstractMemberBuilder {
      * @param node the XML element that specifies which components to document
      * @param memberDetailsTree the content tree to which the documentation will be added
      */
-    public void buildMethodDoc(XMLNode node, Content memberDetailsTree) {
+    public void buildMethodDoc(XMLNode node, Content memberDetailsTree)
+            throws IOException {
         if (writer == null) {
             return;
         }
         int size = methods.size();
         if (size > 0) {
-            Content methodDetailsTree = writer.getMethodDetailsTreeHeader(
-                    classDoc, memberDetailsTree);
+            Content methodDetailsTree = ContentStream.open(memberDetailsTree,
+                    writer.getMethodDetailsTreeHeader(classDoc, memberDetailsTree),
+                    writer::getMethodDetails);
             for (currentMethodIndex = 0; currentMethodIndex < size;
                     currentMethodIndex++) {
                 Content methodDocTree = writer.getMethodDocTreeHeader(
@@ -171,8 +174,8 @@ public class MethodBuilder extends AbstractMemberBuilder {
                 methodDetailsTree.addContent(writer.getMethodDoc(
                         methodDocTree, (currentMethodIndex == size - 1)));
             }
-            memberDetailsTree.addContent(
-                    writer.getMethodDetails(methodDetailsTree));
+            ContentStream.close(memberDetailsTree, methodDetailsTree,
+                    writer::getMethodDetails);
         }
     }
 
@@ -28,6 +28,7 @@ package com.sun.tools.oldlets.internal.toolkit.builders;
 import com.sun.javadoc.ClassDoc;
 import com.sun.javadoc.ProgramElementDoc;
 import com.sun.javadoc.MethodDoc;
+import java.io.IOException;
 import java.util.*;
 
 import com.sun.tools.oldlets.internal.toolkit.util.*;
@@ -87,7 +88,7 @@ public class PropertyBuilder extends AbstractMemberBuilder {
         this.classDoc = classDoc;
         this.writer = writer;
         visibleMemberMap =
-                new VisibleMemberMap(
+                VisibleMemberMap.getInstance(
                 classDoc,
                 VisibleMemberMap.PROPERTIES,
                 configuration);
@@ -152,14 +153,16 @@ public class PropertyBuilder extends AbstractMemberBuilder {
      * @param node the XML element that specifies which components to document
      * @param memberDetailsTree the content tree to which the documentation will be added
      */
-    public void buildPropertyDoc(XMLNode node, Content memberDetailsTree) {
+    public void buildPropertyDoc(XMLNode node, Content memberDetailsTree)
+            throws IOException {
         if (writer == null) {
             return;
         }
         int size = properties.size();
         if (size > 0) {
-            Content propertyDetailsTree = writer.getPropertyDetailsTreeHeader(
-                    classDoc, memberDetailsTree);
+            Content propertyDetailsTree = ContentStream.open(memberDetailsTree,
+                    writer.getPropertyDetailsTreeHeader(classDoc, memberDetailsTree),
+                    writer::getPropertyDetails);
             for (currentPropertyIndex = 0; currentPropertyIndex < size;
                     currentPropertyIndex++) {
                 Content propertyDocTree = writer.getPropertyDocTreeHeader(
@@ -169,8 +172,8 @@ public class PropertyBuilder extends AbstractMemberBuilder {
                 propertyDetailsTree.addContent(writer.getPropertyDoc(
                         propertyDocTree, (currentPropertyIndex == size - 1)));
             }
-            memberDetailsTree.addContent(
-                    writer.getPropertyDetails(propertyDetailsTree));
+            ContentStream.close(memberDetailsTree, propertyDetailsTree,
+                    writer::getPropertyDetails);
         }
     }
 
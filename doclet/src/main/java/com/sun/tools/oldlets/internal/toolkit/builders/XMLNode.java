@@ -25,6 +25,7 @@
 
 package com.sun.tools.oldlets.internal.toolkit.builders;
 
+import java.lang.invoke.MethodHandle;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -71,4 +72,22 @@ public class XMLNode {
     final String name;
     final Map<String,String> attrs;
     final List<XMLNode> children;
+
+    /**
+     * The build method which built this node last time.
+     */
+    Handler handler;
+
+    /**
+     * The build method resolved for a builder class.
+     */
+    static final class Handler {
+        final Class<?> builder;
+        final MethodHandle method;
+
+        Handler(Class<?> builder, MethodHandle method) {
+            this.builder = builder;
+            this.method = method;
+        }
+    }
 }
@@ -123,7 +123,7 @@ public class ValueTaglet extends BaseInlineTaglet {
      * return field that the value tag was used in. Return null if the name is null
      * or empty string and if the value tag is not used on a field.
      */
-    private FieldDoc getFieldDoc(Configuration config, Tag tag, String name) {
+    public static FieldDoc getFieldDoc(Configuration config, Tag tag, String name) {
         if (name == null || name.length() == 0) {
             //Base case: no label.
             if (tag.holder() instanceof FieldDoc) {
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package com.sun.tools.oldlets.internal.toolkit.util;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Output stream that replaces a file only when its content changes.
+ *
+ * The output is kept in memory until the stream is closed. It is then
+ * compared with the existing file, the sizes first and then the bytes.
+ * An unchanged file is left alone, keeping its modification time and
+ * costing no write. A changed file is written to a temporary file next
+ * to it that atomically replaces it, so readers never see a partially
+ * written page.
+ *
+ *  <p><b>This is NOT part of any supported API.
+ *  If you write code that depends on this, you do so at your own risk.
+ *  This code and its internal interfaces are subject to change or
+ *  deletion without notice.</b>
+ */
+class ChangedFileOutputStream extends OutputStream {
+    private final File file;
+    private final Buffer buffer = new Buffer();
+    private boolean closed;
+
+    ChangedFileOutputStream(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public void write(int b) {
+        buffer.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        buffer.write(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (buffer.sameAs(file)) {
+            return;
+        }
+        Path target = file.toPath();
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, file.getName(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                buffer.writeTo(out);
+            }
+            try {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Gives access to the collected bytes without copying them.
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+        Buffer() {
+            super(8192);
+        }
+
+        boolean sameAs(File file) throws IOException {
+            if (!file.isFile() || file.length() != count) {
+                return false;
+            }
+            byte[] chunk = new byte[8192];
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
+                int pos = 0;
+                for (;;) {
+                    int n = in.read(chunk);
+                    if (n < 0) {
+                        return pos == count;
+                    }
+                    if (pos + n > count) {
+                        return false;
+                    }
+                    for (int i = 0; i < n; i++) {
+                        if (chunk[i] != buf[pos + i]) {
+                            return false;
+                        }
+                    }
+                    pos += n;
+                }
+            }
+        }
+    }
+}
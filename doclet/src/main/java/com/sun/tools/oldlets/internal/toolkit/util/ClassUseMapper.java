@@ -27,6 +27,7 @@ package com.sun.tools.oldlets.internal.toolkit.util;
 
 import com.sun.javadoc.Type;
 import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.Doc;
 import com.sun.javadoc.PackageDoc;
 import com.sun.javadoc.MemberDoc;
 import com.sun.javadoc.Parameter;
@@ -47,6 +48,13 @@ import java.util.*;
 /**
  * Map all class uses for a given class.
  *
+ * The uses are kept in a compact index. Each used class gets an integer
+ * id, so its qualified name is stored once, and each element using a
+ * class gets an integer id as well. All the references are then stored
+ * in a single array, grouped by the used class and the kind of the use
+ * and in the order they were found. The lists and sets handed to the
+ * writers are created when a class is queried.
+ *
  *  <p><b>This is NOT part of any supported API.
  *  If you write code that depends on this, you do so at your own risk.
  *  This code and its internal interfaces are subject to change or
@@ -57,148 +65,94 @@ import java.util.*;
  */
 public class ClassUseMapper {
 
-    private final ClassTree classtree;
-
-    /**
-     * Mapping of ClassDocs to set of PackageDoc used by that class.
-     * Entries may be null.
-     */
-    public Map<String,Set<PackageDoc>> classToPackage = new HashMap<String,Set<PackageDoc>>();
-
-    /**
-     * Mapping of Annotations to set of PackageDoc that use the annotation.
-     */
-    public Map<String,List<PackageDoc>> classToPackageAnnotations = new HashMap<String,List<PackageDoc>>();
-
-    /**
-     * Mapping of ClassDocs to set of ClassDoc used by that class.
-     * Entries may be null.
-     */
-    public Map<String,Set<ClassDoc>> classToClass = new HashMap<String,Set<ClassDoc>>();
-
-    /**
-     * Mapping of ClassDocs to list of ClassDoc which are direct or
-     * indirect subclasses of that class.
-     * Entries may be null.
-     */
-    public Map<String,List<ClassDoc>> classToSubclass = new HashMap<String,List<ClassDoc>>();
-
-    /**
-     * Mapping of ClassDocs to list of ClassDoc which are direct or
-     * indirect subinterfaces of that interface.
-     * Entries may be null.
-     */
-    public Map<String,List<ClassDoc>> classToSubinterface = new HashMap<String,List<ClassDoc>>();
-
-    /**
-     * Mapping of ClassDocs to list of ClassDoc which implement
-     * this interface.
-     * Entries may be null.
-     */
-    public Map<String,List<ClassDoc>> classToImplementingClass = new HashMap<String,List<ClassDoc>>();
-
-    /**
-     * Mapping of ClassDocs to list of FieldDoc declared as that class.
-     * Entries may be null.
-     */
-    public Map<String,List<FieldDoc>> classToField = new HashMap<String,List<FieldDoc>>();
-
-    /**
-     * Mapping of ClassDocs to list of MethodDoc returning that class.
-     * Entries may be null.
-     */
-    public Map<String,List<MethodDoc>> classToMethodReturn = new HashMap<String,List<MethodDoc>>();
-
-    /**
-     * Mapping of ClassDocs to list of MethodDoc having that class
-     * as an arg.
-     * Entries may be null.
-     */
-    public Map<String,List<ExecutableMemberDoc>> classToMethodArgs = new HashMap<String,List<ExecutableMemberDoc>>();
-
-    /**
-     * Mapping of ClassDocs to list of MethodDoc which throws that class.
-     * Entries may be null.
-     */
-    public Map<String,List<ExecutableMemberDoc>> classToMethodThrows = new HashMap<String,List<ExecutableMemberDoc>>();
-
-    /**
-     * Mapping of ClassDocs to list of ConstructorDoc having that class
-     * as an arg.
-     * Entries may be null.
-     */
-    public Map<String,List<ExecutableMemberDoc>> classToConstructorArgs = new HashMap<String,List<ExecutableMemberDoc>>();
-
-    /**
-     * Mapping of ClassDocs to list of ConstructorDoc which throws that class.
-     * Entries may be null.
-     */
-    public Map<String,List<ExecutableMemberDoc>> classToConstructorThrows = new HashMap<String,List<ExecutableMemberDoc>>();
-
-    /**
-     * The mapping of AnnotationTypeDocs to constructors that use them.
-     */
-    public Map<String,List<ConstructorDoc>> classToConstructorAnnotations = new HashMap<String,List<ConstructorDoc>>();
-
-    /**
-     * The mapping of AnnotationTypeDocs to Constructor parameters that use them.
-     */
-    public Map<String,List<ExecutableMemberDoc>> classToConstructorParamAnnotation = new HashMap<String,List<ExecutableMemberDoc>>();
-
-    /**
-     * The mapping of ClassDocs to Constructor arguments that use them as type parameters.
-     */
-    public Map<String,List<ExecutableMemberDoc>> classToConstructorDocArgTypeParam = new HashMap<String,List<ExecutableMemberDoc>>();
-
-    /**
-     * The mapping of ClassDocs to ClassDocs that use them as type parameters.
-     */
-    public Map<String,List<ClassDoc>> classToClassTypeParam = new HashMap<String,List<ClassDoc>>();
-
     /**
-     * The mapping of AnnotationTypeDocs to ClassDocs that use them.
+     * The kinds of uses of a class by program elements.
      */
-    public Map<String,List<ClassDoc>> classToClassAnnotations = new HashMap<String,List<ClassDoc>>();
+    public enum Use {
+        /** Classes using the class as a bound of their type parameters. */
+        CLASS_TYPE_PARAMETER,
+        /** Classes annotated by the annotation type. */
+        CLASS_ANNOTATIONS,
+        /** Direct or indirect subclasses of the class. */
+        SUBCLASS,
+        /** Direct or indirect subinterfaces of the interface. */
+        SUBINTERFACE,
+        /** Classes implementing the interface. */
+        IMPLEMENTING_CLASS,
+        /** Fields declared as the class. */
+        FIELD,
+        /** Fields using the class as a type argument of their type. */
+        FIELD_TYPE_PARAMETER,
+        /** Fields annotated by the annotation type. */
+        FIELD_ANNOTATIONS,
+        /** Methods returning the class. */
+        METHOD_RETURN,
+        /** Methods having the class as an argument. */
+        METHOD_ARGS,
+        /** Methods throwing the class. */
+        METHOD_THROWS,
+        /** Methods using the class as a bound of their type parameters. */
+        METHOD_TYPE_PARAMETER,
+        /** Methods using the class as a type argument of their arguments. */
+        METHOD_ARG_TYPE_PARAMETER,
+        /** Methods using the class as a type argument of their return type. */
+        METHOD_RETURN_TYPE_PARAMETER,
+        /** Methods annotated by the annotation type. */
+        METHOD_ANNOTATIONS,
+        /** Methods with parameters annotated by the annotation type. */
+        METHOD_PARAMETER_ANNOTATIONS,
+        /** Constructors having the class as an argument. */
+        CONSTRUCTOR_ARGS,
+        /** Constructors throwing the class. */
+        CONSTRUCTOR_THROWS,
+        /** Constructors annotated by the annotation type. */
+        CONSTRUCTOR_ANNOTATIONS,
+        /** Constructors with parameters annotated by the annotation type. */
+        CONSTRUCTOR_PARAMETER_ANNOTATIONS,
+        /** Constructors using the class as a type argument of their arguments. */
+        CONSTRUCTOR_ARG_TYPE_PARAMETER
+    }
 
-    /**
-     * The mapping of ClassDocs to ExecutableMemberDocs that use them as type parameters.
-     */
-    public Map<String,List<MethodDoc>> classToExecMemberDocTypeParam = new HashMap<String,List<MethodDoc>>();
+    private static final Use[] USES = Use.values();
 
     /**
-     * The mapping of ClassDocs to ExecutableMemberDocs arguments that use them as type parameters.
+     * Kind of the references from annotated packages, which are not
+     * program elements.
      */
-    public Map<String,List<ExecutableMemberDoc>> classToExecMemberDocArgTypeParam = new HashMap<String,List<ExecutableMemberDoc>>();
+    private static final int PACKAGE_ANNOTATIONS = USES.length;
 
     /**
-     * The mapping of AnnotationTypeDocs to ExecutableMemberDocs that use them.
+     * Number of bits of a reference holding its kind.
      */
-    public Map<String,List<MethodDoc>> classToExecMemberDocAnnotations = new HashMap<String,List<MethodDoc>>();
+    private static final int KIND_BITS = 5;
+    private static final int KIND_MASK = (1 << KIND_BITS) - 1;
 
     /**
-     * The mapping of ClassDocs to ExecutableMemberDocs that have return type
-     * with type parameters of that class.
+     * Ids of the used classes, by their qualified names.
      */
-    public Map<String,List<MethodDoc>> classToExecMemberDocReturnTypeParam = new HashMap<String,List<MethodDoc>>();
+    private final Map<String,Integer> classIds = new HashMap<String,Integer>();
 
     /**
-     * The mapping of AnnotationTypeDocs to MethodDoc parameters that use them.
+     * The elements using the classes, indexed by their ids.
      */
-    public Map<String,List<ExecutableMemberDoc>> classToExecMemberDocParamAnnotation = new HashMap<String,List<ExecutableMemberDoc>>();
+    private Doc[] docs;
 
     /**
-     * The mapping of ClassDocs to FieldDocs that use them as type parameters.
+     * The references of the class with id {@code i} are stored in
+     * {@code refs[offsets[i]]} up to {@code refs[offsets[i + 1]]}. Each
+     * reference is the id of the using element shifted by
+     * {@link #KIND_BITS} with the kind of the use in the lower bits.
      */
-    public Map<String,List<FieldDoc>> classToFieldDocTypeParam = new HashMap<String,List<FieldDoc>>();
+    private int[] offsets;
+    private int[] refs;
 
     /**
-     * The mapping of AnnotationTypeDocs to FieldDocs that use them.
+     * State used only while the uses are being collected.
      */
-    public Map<String,List<FieldDoc>> annotationToFieldDoc = new HashMap<String,List<FieldDoc>>();
-
+    private Collector collector;
 
     public ClassUseMapper(RootDoc root, ClassTree classtree) {
-        this.classtree = classtree;
+        collector = new Collector(classtree);
 
         // Map subclassing, subinterfacing implementing, ...
         for (Iterator<ClassDoc> it = classtree.baseclasses().iterator(); it.hasNext();) {
@@ -212,73 +166,161 @@ public class ClassUseMapper {
         ClassDoc[] classes = root.classes();
         for (int i = 0; i < classes.length; i++) {
             PackageDoc pkg = classes[i].containingPackage();
-            mapAnnotations(classToPackageAnnotations, pkg, pkg);
+            mapAnnotations(pkg, pkg);
             ClassDoc cd = classes[i];
-            mapTypeParameters(classToClassTypeParam, cd, cd);
-            mapAnnotations(classToClassAnnotations, cd, cd);
+            mapTypeParameters(Use.CLASS_TYPE_PARAMETER, cd, cd);
+            mapAnnotations(Use.CLASS_ANNOTATIONS, cd, cd);
             FieldDoc[] fields = cd.fields();
             for (int j = 0; j < fields.length; j++) {
                 FieldDoc fd = fields[j];
-                mapTypeParameters(classToFieldDocTypeParam, fd, fd);
-                mapAnnotations(annotationToFieldDoc, fd, fd);
+                mapTypeParameters(Use.FIELD_TYPE_PARAMETER, fd, fd);
+                mapAnnotations(Use.FIELD_ANNOTATIONS, fd, fd);
                 if (! fd.type().isPrimitive()) {
-                    add(classToField, fd.type().asClassDoc(), fd);
+                    add(Use.FIELD, fd.type().asClassDoc(), fd);
                 }
             }
             ConstructorDoc[] cons = cd.constructors();
             for (int j = 0; j < cons.length; j++) {
-                mapAnnotations(classToConstructorAnnotations, cons[j], cons[j]);
+                mapAnnotations(Use.CONSTRUCTOR_ANNOTATIONS, cons[j], cons[j]);
                 mapExecutable(cons[j]);
             }
             MethodDoc[] meths = cd.methods();
             for (int j = 0; j < meths.length; j++) {
                 MethodDoc md = meths[j];
                 mapExecutable(md);
-                mapTypeParameters(classToExecMemberDocTypeParam, md, md);
-                mapAnnotations(classToExecMemberDocAnnotations, md, md);
+                mapTypeParameters(Use.METHOD_TYPE_PARAMETER, md, md);
+                mapAnnotations(Use.METHOD_ANNOTATIONS, md, md);
                 if (! (md.returnType().isPrimitive() || md.returnType() instanceof TypeVariable)) {
-                    mapTypeParameters(classToExecMemberDocReturnTypeParam,
+                    mapTypeParameters(Use.METHOD_RETURN_TYPE_PARAMETER,
                         md.returnType(), md);
-                    add(classToMethodReturn, md.returnType().asClassDoc(), md);
+                    add(Use.METHOD_RETURN, md.returnType().asClassDoc(), md);
+                }
+            }
+        }
+        collector.finish();
+        collector = null;
+    }
+
+    /**
+     * Return the elements using the class in the given way, in the order
+     * they were found.
+     *
+     * @param use the kind of the use
+     * @param cd the used class
+     * @return new list of the using elements, empty if there are none
+     */
+    public List<ProgramElementDoc> getUses(Use use, ClassDoc cd) {
+        List<ProgramElementDoc> list = new ArrayList<ProgramElementDoc>();
+        Integer id = classIds.get(cd.qualifiedName());
+        if (id != null) {
+            for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+                if ((refs[i] & KIND_MASK) == use.ordinal()) {
+                    list.add((ProgramElementDoc) docs[refs[i] >>> KIND_BITS]);
                 }
             }
         }
+        return list;
     }
 
     /**
-     * Return all subclasses of a class AND fill-in classToSubclass map.
+     * Return the packages annotated by the annotation type.
+     *
+     * @param cd the annotation type
+     * @return new list of the packages, empty if there are none
+     */
+    public List<PackageDoc> getPackageAnnotations(ClassDoc cd) {
+        List<PackageDoc> list = new ArrayList<PackageDoc>();
+        Integer id = classIds.get(cd.qualifiedName());
+        if (id != null) {
+            for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+                if ((refs[i] & KIND_MASK) == PACKAGE_ANNOTATIONS) {
+                    list.add((PackageDoc) docs[refs[i] >>> KIND_BITS]);
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Return the classes using the class in any of the {@link Use} ways.
+     *
+     * @param cd the used class
+     * @return new set of the classes, empty if there are none
+     */
+    public Set<ClassDoc> getUsingClasses(ClassDoc cd) {
+        Set<ClassDoc> clsSet = new TreeSet<ClassDoc>();
+        Integer id = classIds.get(cd.qualifiedName());
+        if (id != null) {
+            for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+                if ((refs[i] & KIND_MASK) != PACKAGE_ANNOTATIONS) {
+                    Doc ref = docs[refs[i] >>> KIND_BITS];
+                    clsSet.add(ref instanceof MemberDoc?
+                            ((MemberDoc)ref).containingClass() :
+                                (ClassDoc)ref);
+                }
+            }
+        }
+        return clsSet;
+    }
+
+    /**
+     * Return the packages of the elements using the class in any of the
+     * {@link Use} ways.
+     *
+     * @param cd the used class
+     * @return new set of the packages, empty if there are none
+     */
+    public Set<PackageDoc> getUsingPackages(ClassDoc cd) {
+        Set<PackageDoc> pkgSet = new TreeSet<PackageDoc>();
+        Integer id = classIds.get(cd.qualifiedName());
+        if (id != null) {
+            for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+                if ((refs[i] & KIND_MASK) != PACKAGE_ANNOTATIONS) {
+                    pkgSet.add(((ProgramElementDoc) docs[refs[i] >>> KIND_BITS]).containingPackage());
+                }
+            }
+        }
+        return pkgSet;
+    }
+
+    /**
+     * Return all subclasses of a class AND record them as its uses.
      */
     private Collection<ClassDoc> subclasses(ClassDoc cd) {
-        Collection<ClassDoc> ret = classToSubclass.get(cd.qualifiedName());
+        Integer id = collector.classId(cd);
+        Collection<ClassDoc> ret = collector.subclasses.get(id);
         if (ret == null) {
             ret = new TreeSet<ClassDoc>();
-            List<ClassDoc> subs = classtree.subclasses(cd);
+            List<ClassDoc> subs = collector.classtree.subclasses(cd);
             if (subs != null) {
                 ret.addAll(subs);
                 for (Iterator<ClassDoc> it = subs.iterator(); it.hasNext();) {
                     ret.addAll(subclasses(it.next()));
                 }
             }
-            addAll(classToSubclass, cd, ret);
+            addAll(Use.SUBCLASS, cd, ret);
+            collector.subclasses.put(id, ret);
         }
         return ret;
     }
 
     /**
-     * Return all subinterfaces of an interface AND fill-in classToSubinterface map.
+     * Return all subinterfaces of an interface AND record them as its uses.
      */
     private Collection<ClassDoc> subinterfaces(ClassDoc cd) {
-        Collection<ClassDoc> ret = classToSubinterface.get(cd.qualifiedName());
+        Integer id = collector.classId(cd);
+        Collection<ClassDoc> ret = collector.subinterfaces.get(id);
         if (ret == null) {
             ret = new TreeSet<ClassDoc>();
-            List<ClassDoc> subs = classtree.subinterfaces(cd);
+            List<ClassDoc> subs = collector.classtree.subinterfaces(cd);
             if (subs != null) {
                 ret.addAll(subs);
                 for (Iterator<ClassDoc> it = subs.iterator(); it.hasNext();) {
                     ret.addAll(subinterfaces(it.next()));
                 }
             }
-            addAll(classToSubinterface, cd, ret);
+            addAll(Use.SUBINTERFACE, cd, ret);
+            collector.subinterfaces.put(id, ret);
         }
         return ret;
     }
@@ -286,14 +328,15 @@ public class ClassUseMapper {
     /**
      * Return all implementing classes of an interface (including
      * all subclasses of implementing classes and all classes
-     * implementing subinterfaces) AND fill-in both classToImplementingClass
-     * and classToSubinterface maps.
+     * implementing subinterfaces) AND record both the implementing
+     * classes and the subinterfaces as its uses.
      */
     private Collection<ClassDoc> implementingClasses(ClassDoc cd) {
-        Collection<ClassDoc> ret = classToImplementingClass.get(cd.qualifiedName());
+        Integer id = collector.classId(cd);
+        Collection<ClassDoc> ret = collector.implementingClasses.get(id);
         if (ret == null) {
             ret = new TreeSet<ClassDoc>();
-            List<ClassDoc> impl = classtree.implementingclasses(cd);
+            List<ClassDoc> impl = collector.classtree.implementingclasses(cd);
             if (impl != null) {
                 ret.addAll(impl);
                 for (Iterator<ClassDoc> it = impl.iterator(); it.hasNext();) {
@@ -303,7 +346,8 @@ public class ClassUseMapper {
             for (Iterator<ClassDoc> it = subinterfaces(cd).iterator(); it.hasNext();) {
                 ret.addAll(implementingClasses(it.next()));
             }
-            addAll(classToImplementingClass, cd, ret);
+            addAll(Use.IMPLEMENTING_CLASS, cd, ret);
+            collector.implementingClasses.put(id, ret);
         }
         return ret;
     }
@@ -322,82 +366,36 @@ public class ClassUseMapper {
             if ((! params[k].type().isPrimitive()) &&
                  ! classArgs.contains(pcd) &&
                  ! (pcd instanceof TypeVariable)) {
-                add(isConstructor? classToConstructorArgs :classToMethodArgs,
+                add(isConstructor? Use.CONSTRUCTOR_ARGS : Use.METHOD_ARGS,
                         pcd.asClassDoc(), em);
                 classArgs.add(pcd);
                 mapTypeParameters(isConstructor?
-                   classToConstructorDocArgTypeParam : classToExecMemberDocArgTypeParam,
+                   Use.CONSTRUCTOR_ARG_TYPE_PARAMETER : Use.METHOD_ARG_TYPE_PARAMETER,
                    pcd, em);
             }
             mapAnnotations(
                 isConstructor ?
-                    classToConstructorParamAnnotation :
-                    classToExecMemberDocParamAnnotation,
+                    Use.CONSTRUCTOR_PARAMETER_ANNOTATIONS :
+                    Use.METHOD_PARAMETER_ANNOTATIONS,
                 params[k], em);
         }
         ClassDoc[] thr = em.thrownExceptions();
         for (int k = 0; k < thr.length; k++) {
-            add(isConstructor? classToConstructorThrows : classToMethodThrows,
+            add(isConstructor? Use.CONSTRUCTOR_THROWS : Use.METHOD_THROWS,
                     thr[k], em);
         }
     }
 
-    private <T> List<T> refList(Map<String,List<T>> map, ClassDoc cd) {
-        List<T> list = map.get(cd.qualifiedName());
-        if (list == null) {
-            List<T> l = new ArrayList<T>();
-            list = l;
-            map.put(cd.qualifiedName(), list);
-        }
-        return list;
-    }
-
-    private Set<PackageDoc> packageSet(ClassDoc cd) {
-        Set<PackageDoc> pkgSet = classToPackage.get(cd.qualifiedName());
-        if (pkgSet == null) {
-            pkgSet = new TreeSet<PackageDoc>();
-            classToPackage.put(cd.qualifiedName(), pkgSet);
-        }
-        return pkgSet;
+    private void add(Use use, ClassDoc cd, ProgramElementDoc ref) {
+        collector.add(cd, use.ordinal(), ref);
     }
 
-    private Set<ClassDoc> classSet(ClassDoc cd) {
-        Set<ClassDoc> clsSet = classToClass.get(cd.qualifiedName());
-        if (clsSet == null) {
-            Set<ClassDoc> s = new TreeSet<ClassDoc>();
-            clsSet = s;
-            classToClass.put(cd.qualifiedName(), clsSet);
-        }
-        return clsSet;
-    }
-
-    private <T extends ProgramElementDoc> void add(Map<String,List<T>> map, ClassDoc cd, T ref) {
-        // add to specified map
-        refList(map, cd).add(ref);
-
-        // add ref's package to package map and class map
-        packageSet(cd).add(ref.containingPackage());
-
-        classSet(cd).add(ref instanceof MemberDoc?
-                ((MemberDoc)ref).containingClass() :
-                    (ClassDoc)ref);
-    }
-
-    private void addAll(Map<String,List<ClassDoc>> map, ClassDoc cd, Collection<ClassDoc> refs) {
+    private void addAll(Use use, ClassDoc cd, Collection<ClassDoc> refs) {
         if (refs == null) {
             return;
         }
-        // add to specified map
-        refList(map, cd).addAll(refs);
-
-        Set<PackageDoc> pkgSet = packageSet(cd);
-        Set<ClassDoc> clsSet = classSet(cd);
-        // add ref's package to package map and class map
         for (Iterator<ClassDoc> it = refs.iterator(); it.hasNext();) {
-            ClassDoc cls = it.next();
-            pkgSet.add(cls.containingPackage());
-            clsSet.add(cls);
-
+            collector.add(cd, use.ordinal(), it.next());
         }
     }
 
@@ -405,36 +403,35 @@ public class ClassUseMapper {
      * Map the ClassDocs to the ProgramElementDocs that use them as
      * type parameters.
      *
-     * @param map the map the insert the information into.
+     * @param use the kind of use to record.
      * @param doc the doc whose type parameters are being checked.
      * @param holder the holder that owns the type parameters.
      */
-    private <T extends ProgramElementDoc> void mapTypeParameters(Map<String,List<T>> map, Object doc,
-            T holder) {
+    private void mapTypeParameters(Use use, Object doc, ProgramElementDoc holder) {
         TypeVariable[] typeVariables;
         if (doc instanceof ClassDoc) {
             typeVariables = ((ClassDoc) doc).typeParameters();
         } else if (doc instanceof WildcardType) {
             Type[] extendsBounds = ((WildcardType) doc).extendsBounds();
             for (int k = 0; k < extendsBounds.length; k++) {
-                addTypeParameterToMap(map, extendsBounds[k], holder);
+                addTypeParameterToMap(use, extendsBounds[k], holder);
             }
             Type[] superBounds = ((WildcardType) doc).superBounds();
             for (int k = 0; k < superBounds.length; k++) {
-                addTypeParameterToMap(map, superBounds[k], holder);
+                addTypeParameterToMap(use, superBounds[k], holder);
             }
             return;
         } else if (doc instanceof ParameterizedType) {
             Type[] typeArguments = ((ParameterizedType) doc).typeArguments();
             for (int k = 0; k < typeArguments.length; k++) {
-                addTypeParameterToMap(map, typeArguments[k], holder);
+                addTypeParameterToMap(use, typeArguments[k], holder);
             }
             return;
         } else if (doc instanceof ExecutableMemberDoc) {
             typeVariables = ((ExecutableMemberDoc) doc).typeParameters();
         } else if (doc instanceof FieldDoc) {
             Type fieldType = ((FieldDoc) doc).type();
-            mapTypeParameters(map, fieldType, holder);
+            mapTypeParameters(use, fieldType, holder);
             return;
         } else {
             return;
@@ -442,7 +439,7 @@ public class ClassUseMapper {
         for (int i = 0; i < typeVariables.length; i++) {
             Type[] bounds = typeVariables[i].bounds();
             for (int j = 0; j < bounds.length; j++) {
-                addTypeParameterToMap(map, bounds[j], holder);
+                addTypeParameterToMap(use, bounds[j], holder);
             }
         }
     }
@@ -451,19 +448,14 @@ public class ClassUseMapper {
      * Map the AnnotationType to the ProgramElementDocs that use them as
      * type parameters.
      *
-     * @param map the map the insert the information into.
+     * @param use the kind of use to record.
      * @param doc the doc whose type parameters are being checked.
      * @param holder the holder that owns the type parameters.
      */
-    private <T extends ProgramElementDoc> void mapAnnotations(Map<String,List<T>> map, Object doc,
-            T holder) {
+    private void mapAnnotations(Use use, Object doc, ProgramElementDoc holder) {
         AnnotationDesc[] annotations;
-        boolean isPackage = false;
         if (doc instanceof ProgramElementDoc) {
             annotations = ((ProgramElementDoc) doc).annotations();
-        } else if (doc instanceof PackageDoc) {
-            annotations = ((PackageDoc) doc).annotations();
-            isPackage = true;
         } else if (doc instanceof Parameter) {
             annotations = ((Parameter) doc).annotations();
         } else {
@@ -471,39 +463,114 @@ public class ClassUseMapper {
         }
         for (int i = 0; i < annotations.length; i++) {
             AnnotationTypeDoc annotationDoc = annotations[i].annotationType();
-            if (isPackage)
-                refList(map, annotationDoc).add(holder);
-            else
-                add(map, annotationDoc, holder);
+            add(use, annotationDoc, holder);
         }
     }
 
 
     /**
-     * Map the AnnotationType to the ProgramElementDocs that use them as
-     * type parameters.
+     * Map the AnnotationType to the PackageDocs that use them.
      *
-     * @param map the map the insert the information into.
-     * @param doc the doc whose type parameters are being checked.
-     * @param holder the holder that owns the type parameters.
+     * @param doc the doc whose annotations are being checked.
+     * @param holder the holder that owns the annotations.
      */
-    private <T extends PackageDoc> void mapAnnotations(Map<String,List<T>> map, PackageDoc doc,
-            T holder) {
+    private void mapAnnotations(PackageDoc doc, PackageDoc holder) {
         AnnotationDesc[] annotations;
         annotations = doc.annotations();
         for (int i = 0; i < annotations.length; i++) {
             AnnotationTypeDoc annotationDoc = annotations[i].annotationType();
-            refList(map, annotationDoc).add(holder);
+            collector.add(annotationDoc, PACKAGE_ANNOTATIONS, holder);
         }
     }
 
-    private <T extends ProgramElementDoc> void addTypeParameterToMap(Map<String,List<T>> map, Type type,
-            T holder) {
+    private void addTypeParameterToMap(Use use, Type type, ProgramElementDoc holder) {
         if (type instanceof ClassDoc) {
-            add(map, (ClassDoc) type, holder);
+            add(use, (ClassDoc) type, holder);
         } else if (type instanceof ParameterizedType) {
-            add(map, ((ParameterizedType) type).asClassDoc(), holder);
+            add(use, ((ParameterizedType) type).asClassDoc(), holder);
+        }
+        mapTypeParameters(use, type, holder);
+    }
+
+    /**
+     * Collects the references and ids while the uses are being mapped
+     * and turns them into the compact index once all are known.
+     */
+    private final class Collector {
+        final ClassTree classtree;
+        final Map<Integer,Collection<ClassDoc>> subclasses = new HashMap<Integer,Collection<ClassDoc>>();
+        final Map<Integer,Collection<ClassDoc>> subinterfaces = new HashMap<Integer,Collection<ClassDoc>>();
+        final Map<Integer,Collection<ClassDoc>> implementingClasses = new HashMap<Integer,Collection<ClassDoc>>();
+        private final Map<ClassDoc,Integer> classDocIds = new IdentityHashMap<ClassDoc,Integer>();
+        private final Map<Doc,Integer> docIds = new IdentityHashMap<Doc,Integer>();
+        private final List<Doc> docList = new ArrayList<Doc>();
+        private int[] usedClasses = new int[1024];
+        private int[] references = new int[1024];
+        private int count;
+
+        Collector(ClassTree classtree) {
+            this.classtree = classtree;
+        }
+
+        /**
+         * Id of the class. Classes with the same qualified name share it.
+         */
+        Integer classId(ClassDoc cd) {
+            Integer id = classDocIds.get(cd);
+            if (id == null) {
+                String name = cd.qualifiedName();
+                id = classIds.get(name);
+                if (id == null) {
+                    id = classIds.size();
+                    classIds.put(name, id);
+                }
+                classDocIds.put(cd, id);
+            }
+            return id;
+        }
+
+        void add(ClassDoc cd, int kind, Doc ref) {
+            Integer docId = docIds.get(ref);
+            if (docId == null) {
+                docId = docList.size();
+                docList.add(ref);
+                docIds.put(ref, docId);
+            }
+            if (count == references.length) {
+                usedClasses = Arrays.copyOf(usedClasses, count * 2);
+                references = Arrays.copyOf(references, count * 2);
+            }
+            usedClasses[count] = classId(cd);
+            references[count] = docId << KIND_BITS | kind;
+            count++;
+        }
+
+        /**
+         * Group the references by the used class and their kind, keeping
+         * the order in which they were added.
+         */
+        void finish() {
+            int groups = classIds.size() * KIND_MASK;
+            int[] start = new int[groups + 1];
+            for (int i = 0; i < count; i++) {
+                start[group(i) + 1]++;
+            }
+            for (int g = 0; g < groups; g++) {
+                start[g + 1] += start[g];
+            }
+            offsets = new int[classIds.size() + 1];
+            for (int c = 0; c <= classIds.size(); c++) {
+                offsets[c] = start[c * KIND_MASK];
+            }
+            refs = new int[count];
+            for (int i = 0; i < count; i++) {
+                refs[start[group(i)]++] = references[i];
+            }
+            docs = docList.toArray(new Doc[docList.size()]);
+        }
+
+        private int group(int i) {
+            return usedClasses[i] * KIND_MASK + (references[i] & KIND_MASK);
         }
-        mapTypeParameters(map, type, holder);
     }
 }
@@ -95,6 +95,17 @@ public abstract class DocFile {
         return DocFileFactory.getFactory(configuration).list(location, path);
     }
 
+    /**
+     * Complete the output once all the files have been written, e.g.
+     * write the central directory of the zip archive the documentation
+     * is generated into.
+     * @param configuration the doclet configuration
+     * @throws IOException if the output cannot be completed
+     */
+    public static void finishOutput(Configuration configuration) throws IOException {
+        DocFileFactory.getFactory(configuration).finishOutput();
+    }
+
     /** Create a DocFile without a location or path */
     protected DocFile(Configuration configuration) {
         this.configuration = configuration;
@@ -25,6 +25,7 @@
 
 package com.sun.tools.oldlets.internal.toolkit.util;
 
+import java.io.IOException;
 import java.util.Map;
 import java.util.WeakHashMap;
 
@@ -69,6 +70,8 @@ abstract class DocFileFactory {
                     throw new IllegalStateException(t);
                 }
             }
+            if (!configuration.destArchiveName.isEmpty())
+                f = new ZipDocFileFactory(configuration, f);
             factories.put(configuration, f);
         }
         return f;
@@ -97,4 +100,10 @@ abstract class DocFileFactory {
      *  list files
      */
     abstract Iterable<DocFile> list(Location location, DocPath path);
+
+    /**
+     * Complete the output once all the files have been written.
+     */
+    void finishOutput() throws IOException {
+    }
 }
@@ -55,6 +55,9 @@ public class DocPaths {
     /** The name of the subdirectory for user-provided additional documentation files. */
     public static final DocPath DOC_FILES = DocPath.create("doc-files");
 
+    /** The name of the manifest with fingerprints of the generated pages. */
+    public static final DocPath FINGERPRINTS = DocPath.create(".fingerprints");
+
     /** The name of the file for help info. */
     public static final DocPath HELP_DOC = DocPath.create("help-doc.html");
 
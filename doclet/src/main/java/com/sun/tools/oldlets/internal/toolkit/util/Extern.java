@@ -29,8 +29,11 @@ import com.sun.javadoc.DocErrorReporter;
 import com.sun.javadoc.ProgramElementDoc;
 import java.io.*;
 import java.net.*;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import javax.tools.DocumentationTool;
 
@@ -70,6 +73,11 @@ public class Extern {
      */
     private boolean linkoffline = false;
 
+    /**
+     * Loads the package lists of the URLs, lazily initialized.
+     */
+    private PackageListLoader loader;
+
     /**
      * Stores the info for one external doc set
      */
@@ -163,6 +171,38 @@ public class Extern {
         return new DocLink(p, "is-external=true", memberName);
     }
 
+    /**
+     * Start fetching the package lists of all the "-link" and "-linkoffline"
+     * options in parallel. The lists are then read in the order of the
+     * options by {@link #link}.
+     *
+     * @param pkglisturls URLs or directory paths of the package lists.
+     */
+    public void prefetch(List<String> pkglisturls) {
+        List<URL> urls = new ArrayList<URL>();
+        for (String pkglisturl : pkglisturls) {
+            if (isUrl(pkglisturl)) {
+                try {
+                    urls.add(toURL(adjustEndFileSeparator(pkglisturl)));
+                } catch (Fault f) {
+                    // reported when the link is processed
+                }
+            }
+        }
+        getLoader().prefetch(urls);
+    }
+
+    private PackageListLoader getLoader() {
+        if (loader == null) {
+            File cacheDir = configuration.linkcache.isEmpty() ?
+                    null : new File(configuration.linkcache);
+            loader = new PackageListLoader(cacheDir,
+                    TimeUnit.MINUTES.toMillis(configuration.linkcachettl),
+                    configuration.linkcacheoffline);
+        }
+        return loader;
+    }
+
     /**
      * Build the extern package list from given URL or the directory path.
      * Flag error if the "-link" or "-linkoffline" option is already used.
@@ -227,7 +267,8 @@ public class Extern {
     }
 
     /**
-     * Fetch the URL and read the "package-list" file.
+     * Fetch the URL and read the "package-list" file, or the "element-list"
+     * file when there is no "package-list".
      *
      * @param urlpath        Path to the packages.
      * @param pkglisturlpath URL or the path to the "package-list" file.
@@ -235,10 +276,8 @@ public class Extern {
     private void readPackageListFromURL(String urlpath, URL pkglisturlpath)
             throws Fault {
         try {
-            URL link = getLinkForPackageList(pkglisturlpath);
-            readPackageList(link.openStream(), urlpath, false);
-        } catch (URISyntaxException exc) {
-            throw new Fault(configuration.getText("doclet.MalformedURL", pkglisturlpath.toString()), exc);
+            byte[] list = getLoader().load(pkglisturlpath);
+            readPackageList(new ByteArrayInputStream(list), urlpath, false);
         } catch (MalformedURLException exc) {
             throw new Fault(configuration.getText("doclet.MalformedURL", pkglisturlpath.toString()), exc);
         } catch (IOException exc) {
@@ -246,31 +285,6 @@ public class Extern {
         }
     }
 
-    /**
-     * Returns URL to a downloadable file containing the list of packages. This method checks if package-list
-     * exists, if not, returns a link to newer element-list file.
-     *
-     * @param pkglisturlpath The base package list URL.
-     * @return Link to a downloadable file containing package list.
-     * @throws URISyntaxException If the base package list URL is malformed.
-     * @throws IOException If connection to base package list link fails.
-     */
-    private URL getLinkForPackageList(URL pkglisturlpath) throws URISyntaxException, IOException {
-        // First check if package/list/url/path/package-list exists. If this url returns 404, then use
-        // package/list/url/path/element-list
-        URL link = pkglisturlpath.toURI().resolve(DocPaths.PACKAGE_LIST.getPath()).toURL();
-        URLConnection connection = link.openConnection();
-        if (connection instanceof HttpURLConnection) {
-            HttpURLConnection httpConnection = (HttpURLConnection) connection;
-            httpConnection.setRequestMethod("GET");
-            httpConnection.connect();
-            if (httpConnection.getResponseCode() == HttpURLConnection.HTTP_NOT_FOUND) {
-                link = pkglisturlpath.toURI().resolve(DocPaths.ELEMENT_LIST.getPath()).toURL();
-            }
-        }
-        return link;
-    }
-
     /**
      * Read the "package-list" file which is available locally.
      *
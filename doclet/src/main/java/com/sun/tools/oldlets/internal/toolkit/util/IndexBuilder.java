@@ -57,6 +57,11 @@ public class IndexBuilder {
      */
     private Map<Character,List<Doc>> indexmap = new HashMap<Character,List<Doc>>();
 
+    /**
+     * Members collected for the index, sorted by {@link #sortIndexMap()}.
+     */
+    private List<Entry> entries = new ArrayList<Entry>();
+
     /**
      * Don't generate deprecated information if true.
      */
@@ -72,27 +77,50 @@ public class IndexBuilder {
      */
     private boolean javafx;
 
+    /**
+     * Compute the sort keys and sort on several threads?
+     */
+    private boolean parallel;
+
     // make ProgramElementDoc[] when new toArray is available
     protected final Object[] elements;
 
     /**
-     * A comparator used to sort classes and members.
-     * Note:  Maybe this compare code belongs in the tool?
+     * A member of the index with the keys used to sort it. The names are
+     * read from the documentation model when the member is collected,
+     * the keys are computed from them later, possibly in parallel.
+     * Members are ordered like {@link String#compareToIgnoreCase} orders
+     * their names and then their qualified names.
      */
-    private class DocComparator implements Comparator<Doc> {
-        public int compare(Doc d1, Doc d2) {
-            String doc1 = d1.name();
-            String doc2 = d2.name();
-            int compareResult;
-            if ((compareResult = doc1.compareToIgnoreCase(doc2)) != 0) {
+    private static final class Entry implements Comparable<Entry> {
+        final Doc doc;
+        final char unicode;
+        private String name;
+        private String qualifiedName;
+
+        Entry(Doc doc, char unicode, String name, String qualifiedName) {
+            this.doc = doc;
+            this.unicode = unicode;
+            this.name = name;
+            this.qualifiedName = qualifiedName;
+        }
+
+        void computeKeys() {
+            name = foldCase(name);
+            if (qualifiedName != null) {
+                qualifiedName = foldCase(qualifiedName);
+            }
+        }
+
+        public int compareTo(Entry e) {
+            if (unicode != e.unicode) {
+                return unicode < e.unicode ? -1 : 1;
+            }
+            int compareResult = compareKeys(name, e.name);
+            if (compareResult != 0 || qualifiedName == null || e.qualifiedName == null) {
                 return compareResult;
-            } else if (d1 instanceof ProgramElementDoc && d2 instanceof ProgramElementDoc) {
-                 doc1 = (((ProgramElementDoc) d1).qualifiedName());
-                 doc2 = (((ProgramElementDoc) d2).qualifiedName());
-                 return doc1.compareToIgnoreCase(doc2);
-            } else {
-                return 0;
             }
+            return compareKeys(qualifiedName, e.qualifiedName);
         }
     }
 
@@ -125,6 +153,7 @@ public class IndexBuilder {
         this.noDeprecated = noDeprecated;
         this.classesOnly = classesOnly;
         this.javafx = configuration.javafx;
+        this.parallel = configuration.writethreads > 1;
         buildIndexMap(configuration.root);
         Set<Character> set = indexmap.keySet();
         elements =  set.toArray();
@@ -132,12 +161,34 @@ public class IndexBuilder {
     }
 
     /**
-     * Sort the index map. Traverse the index map for all it's elements and
-     * sort each element which is a list.
+     * Sort the collected members and split them into the lists of the
+     * index map. The sort keys of each member are computed only once and
+     * all the members are sorted together, so each list of the map is a
+     * view of a range of the sorted members.
      */
     protected void sortIndexMap() {
-        for (Iterator<List<Doc>> it = indexmap.values().iterator(); it.hasNext(); ) {
-            Collections.sort(it.next(), new DocComparator());
+        Entry[] sorted = entries.toArray(new Entry[entries.size()]);
+        entries = null;
+        if (parallel) {
+            Arrays.stream(sorted).parallel().forEach(Entry::computeKeys);
+            Arrays.parallelSort(sorted);
+        } else {
+            for (Entry e : sorted) {
+                e.computeKeys();
+            }
+            Arrays.sort(sorted);
+        }
+        Doc[] docs = new Doc[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            docs[i] = sorted[i].doc;
+        }
+        List<Doc> all = Arrays.asList(docs);
+        int from = 0;
+        for (int i = 1; i <= sorted.length; i++) {
+            if (i == sorted.length || sorted[i].unicode != sorted[from].unicode) {
+                indexmap.put(sorted[from].unicode, Collections.unmodifiableList(all.subList(from, i)));
+                from = i;
+            }
         }
     }
 
@@ -204,13 +255,9 @@ public class IndexBuilder {
                 char ch = (name.length()==0)?
                     '*' :
                     Character.toUpperCase(name.charAt(0));
-                Character unicode = ch;
-                List<Doc> list = indexmap.get(unicode);
-                if (list == null) {
-                    list = new ArrayList<Doc>();
-                    indexmap.put(unicode, list);
-                }
-                list.add(elements[i]);
+                String qualifiedName = (elements[i] instanceof ProgramElementDoc)
+                        ? ((ProgramElementDoc) elements[i]).qualifiedName() : null;
+                entries.add(new Entry(elements[i], ch, name, qualifiedName));
             }
         }
     }
@@ -263,4 +310,84 @@ public class IndexBuilder {
     public Object[] elements() {
         return elements;
     }
+
+    /**
+     * Map each code point of the string to the value
+     * {@link String#compareToIgnoreCase} compares it by.
+     */
+    static String foldCase(String s) {
+        int i = 0;
+        while (i < s.length()) {
+            char ch = s.charAt(i);
+            if (ch >= 0x80 || (ch >= 'A' && ch <= 'Z')) {
+                break;
+            }
+            i++;
+        }
+        if (i == s.length()) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(s.length());
+        sb.append(s, 0, i);
+        while (i < s.length()) {
+            int cp = s.codePointAt(i);
+            sb.appendCodePoint(Character.toLowerCase(Character.toUpperCase(cp)));
+            i += Character.charCount(cp);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Compare strings returned from {@link #foldCase} by their code points,
+     * like {@link String#compareToIgnoreCase} does. Like there, a surrogate
+     * pair is compared as one code point and the other string may advance
+     * by a single character meanwhile.
+     */
+    static int compareKeys(String s1, String s2) {
+        int n1 = s1.length();
+        int n2 = s2.length();
+        for (int k1 = 0, k2 = 0; k1 < n1 && k2 < n2; k1++, k2++) {
+            char c1 = s1.charAt(k1);
+            char c2 = s2.charAt(k2);
+            if (c1 == c2) {
+                continue;
+            }
+            if (!Character.isSurrogate(c1) && !Character.isSurrogate(c2)) {
+                return c1 - c2;
+            }
+            int cp1 = codePointIncluding(s1, k1);
+            if (Character.isHighSurrogate(c1) && Character.isSupplementaryCodePoint(cp1)) {
+                k1++;
+            }
+            int cp2 = codePointIncluding(s2, k2);
+            if (Character.isHighSurrogate(c2) && Character.isSupplementaryCodePoint(cp2)) {
+                k2++;
+            }
+            if (cp1 != cp2) {
+                return cp1 - cp2;
+            }
+        }
+        return n1 - n2;
+    }
+
+    /**
+     * The code point the character at given index belongs to. A surrogate
+     * counts as a code point of its own unless it is a half of a valid pair.
+     */
+    private static int codePointIncluding(String s, int i) {
+        char ch = s.charAt(i);
+        if (Character.isHighSurrogate(ch) && i + 1 < s.length()) {
+            char low = s.charAt(i + 1);
+            if (Character.isLowSurrogate(low)) {
+                return Character.toCodePoint(ch, low);
+            }
+        }
+        if (Character.isLowSurrogate(ch) && i > 0) {
+            char high = s.charAt(i - 1);
+            if (Character.isHighSurrogate(high)) {
+                return Character.toCodePoint(high, ch);
+            }
+        }
+        return ch;
+    }
 }
@@ -32,7 +32,8 @@ import com.sun.tools.oldlets.internal.toolkit.Configuration;
 
 
 /**
- * Retrieve and format messages stored in a resource.
+ * Retrieve and format messages stored in a resource. Messages may be
+ * reported from several threads at once.
  *
  *  <p><b>This is NOT part of any supported API.
  *  If you write code that depends on this, you do so at your own risk.
@@ -91,6 +92,11 @@ public class MessageRetriever {
      * exist in the properties file.
      */
     public String getText(String key, Object... args) throws MissingResourceException {
+        String message = getBundle().getString(key);
+        return MessageFormat.format(message, args);
+    }
+
+    private synchronized ResourceBundle getBundle() {
         if (messageRB == null) {
             try {
                 messageRB = ResourceBundle.getBundle(resourcelocation);
@@ -99,8 +105,7 @@ public class MessageRetriever {
                                     ") for javadoc doclets is missing.");
             }
         }
-        String message = messageRB.getString(key);
-        return MessageFormat.format(message, args);
+        return messageRB;
     }
 
     /**
@@ -110,7 +115,9 @@ public class MessageRetriever {
      * @param msg message to print
      */
     private void printError(SourcePosition pos, String msg) {
-        configuration.root.printError(pos, msg);
+        synchronized (configuration.root) {
+            configuration.root.printError(pos, msg);
+        }
     }
 
     /**
@@ -119,7 +126,9 @@ public class MessageRetriever {
      * @param msg message to print
      */
     private void printError(String msg) {
-        configuration.root.printError(msg);
+        synchronized (configuration.root) {
+            configuration.root.printError(msg);
+        }
     }
 
     /**
@@ -129,7 +138,9 @@ public class MessageRetriever {
      * @param msg message to print
      */
     private void printWarning(SourcePosition pos, String msg) {
-        configuration.root.printWarning(pos, msg);
+        synchronized (configuration.root) {
+            configuration.root.printWarning(pos, msg);
+        }
     }
 
     /**
@@ -138,7 +149,9 @@ public class MessageRetriever {
      * @param msg message to print
      */
     private void printWarning(String msg) {
-        configuration.root.printWarning(msg);
+        synchronized (configuration.root) {
+            configuration.root.printWarning(msg);
+        }
     }
 
     /**
@@ -148,7 +161,9 @@ public class MessageRetriever {
      * @param msg message to print
      */
     private void printNotice(SourcePosition pos, String msg) {
-        configuration.root.printNotice(pos, msg);
+        synchronized (configuration.root) {
+            configuration.root.printNotice(pos, msg);
+        }
     }
 
     /**
@@ -157,7 +172,9 @@ public class MessageRetriever {
      * @param msg message to print
      */
     private void printNotice(String msg) {
-        configuration.root.printNotice(msg);
+        synchronized (configuration.root) {
+            configuration.root.printNotice(msg);
+        }
     }
 
     /**
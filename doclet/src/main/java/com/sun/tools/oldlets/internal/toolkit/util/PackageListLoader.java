@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package com.sun.tools.oldlets.internal.toolkit.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads the "package-list" or "element-list" files of the "-link" options.
+ *
+ * The lists of all the links are requested in parallel by
+ * {@link #prefetch}, so the latency of the remote servers is paid once
+ * rather than once per link. With a cache directory the fetched lists
+ * are stored in files named after the hash of their URL and are reused
+ * until they are older than the time to live. Should fetching a list
+ * fail, an expired copy is used instead. In offline mode nothing is
+ * fetched and only the cached lists are used.
+ *
+ *  <p><b>This is NOT part of any supported API.
+ *  If you write code that depends on this, you do so at your own risk.
+ *  This code and its internal interfaces are subject to change or
+ *  deletion without notice.</b>
+ */
+public class PackageListLoader {
+    private static final int MAX_THREADS = 8;
+
+    private final File cacheDir;
+    private final long ttlMillis;
+    private final boolean offline;
+    private final Map<String, Future<byte[]>> prefetched =
+            new ConcurrentHashMap<String, Future<byte[]>>();
+
+    /**
+     * Create a loader.
+     *
+     * @param cacheDir directory to keep the fetched lists in, or null
+     * @param ttlMillis how long a cached list is used without fetching it again
+     * @param offline true to use only the cached lists
+     */
+    public PackageListLoader(File cacheDir, long ttlMillis, boolean offline) {
+        this.cacheDir = cacheDir;
+        this.ttlMillis = ttlMillis;
+        this.offline = offline;
+    }
+
+    /**
+     * Start loading the lists of the given locations in the background.
+     *
+     * @param locations URLs of the directories with the lists
+     */
+    public void prefetch(Collection<URL> locations) {
+        if (locations.isEmpty()) {
+            return;
+        }
+        int threads = Math.min(locations.size(), MAX_THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new Daemons());
+        try {
+            for (final URL location : locations) {
+                String key = location.toString();
+                if (prefetched.containsKey(key)) {
+                    continue;
+                }
+                prefetched.put(key, executor.submit(new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() throws IOException {
+                        return read(location);
+                    }
+                }));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Return the content of the "package-list", or "element-list" when
+     * there is no "package-list", in the given location.
+     *
+     * @param location URL of the directory with the list
+     * @return the content of the list
+     * @throws IOException if the list cannot be loaded
+     */
+    public byte[] load(URL location) throws IOException {
+        Future<byte[]> future = prefetched.remove(location.toString());
+        if (future == null) {
+            return read(location);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            throw new InterruptedIOException(location.toString());
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private byte[] read(URL location) throws IOException {
+        File cached = cacheDir == null ? null : new File(cacheDir, cacheName(location));
+        boolean present = cached != null && cached.isFile();
+        if (offline) {
+            if (!present) {
+                throw new FileNotFoundException(location + " is not cached");
+            }
+            return Files.readAllBytes(cached.toPath());
+        }
+        if (present && System.currentTimeMillis() - cached.lastModified() < ttlMillis) {
+            return Files.readAllBytes(cached.toPath());
+        }
+        byte[] content;
+        try {
+            content = fetch(location);
+        } catch (IOException ex) {
+            if (present) {
+                return Files.readAllBytes(cached.toPath());
+            }
+            throw ex;
+        }
+        if (cached != null) {
+            store(cached, content);
+        }
+        return content;
+    }
+
+    /**
+     * Fetch the "package-list" and fall back to the "element-list" of
+     * JDK 10 and newer when it is not found.
+     */
+    static byte[] fetch(URL location) throws IOException {
+        try {
+            return fetch(location, DocPaths.PACKAGE_LIST);
+        } catch (FileNotFoundException ex) {
+            return fetch(location, DocPaths.ELEMENT_LIST);
+        }
+    }
+
+    private static byte[] fetch(URL location, DocPath list) throws IOException {
+        URL link;
+        try {
+            link = location.toURI().resolve(list.getPath()).toURL();
+        } catch (URISyntaxException ex) {
+            MalformedURLException malformed = new MalformedURLException(ex.getMessage());
+            malformed.initCause(ex);
+            throw malformed;
+        }
+        URLConnection connection = link.openConnection();
+        if (connection instanceof HttpURLConnection) {
+            HttpURLConnection httpConnection = (HttpURLConnection) connection;
+            httpConnection.setRequestMethod("GET");
+            if (httpConnection.getResponseCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+                httpConnection.disconnect();
+                throw new FileNotFoundException(link.toString());
+            }
+        }
+        try (InputStream in = connection.getInputStream()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            for (int n; (n = in.read(buf)) >= 0; ) {
+                out.write(buf, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static void store(File cached, byte[] content) throws IOException {
+        File dir = cached.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        File tmp = File.createTempFile(cached.getName(), ".tmp", dir);
+        try {
+            Files.write(tmp.toPath(), content);
+            Files.move(tmp.toPath(), cached.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            tmp.delete();
+        }
+    }
+
+    static String cacheName(URL location) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] digest = md.digest(location.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(digest.length * 2 + 5);
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+                sb.append(Character.forDigit(b & 0xf, 16));
+            }
+            return sb.append(".list").toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static final class Daemons implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "javadoc-link-loader-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -0,0 +1,448 @@
+/*
+ * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package com.sun.tools.oldlets.internal.toolkit.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.sun.javadoc.*;
+import com.sun.tools.oldlets.internal.toolkit.Configuration;
+import com.sun.tools.oldlets.internal.toolkit.taglets.ValueTaglet;
+
+/**
+ * Fingerprints of the generated pages, used by the "-incremental" option
+ * to skip pages whose content could not have changed since the previous
+ * run.
+ *
+ * The fingerprint of a class page covers the raw comments (with the
+ * snippets already expanded), signatures, parameter names and
+ * annotations of the class, its members, nested classes and all its
+ * supertypes, the kinds of the types in these signatures, the targets
+ * of its links, the values of constants its {@code {@value}} tags refer to,
+ * its subtypes and its neighbours in the navigation bar. The
+ * options, the build of the doclet and the set of documented classes are
+ * covered by a global fingerprint; when it changes every page is
+ * generated again.
+ *
+ * The fingerprints are kept in a manifest in the output directory. It
+ * is cleared when a run starts and only written once the run succeeds,
+ * so pages written by a failed or a non-incremental run are never
+ * mistaken for up to date ones.
+ *
+ *  <p><b>This is NOT part of any supported API.
+ *  If you write code that depends on this, you do so at your own risk.
+ *  This code and its internal interfaces are subject to change or
+ *  deletion without notice.</b>
+ */
+public class PageFingerprints {
+    private static final String HEADER = "# javadoc page fingerprints, version 1";
+    private static final String GLOBAL = "global ";
+
+    private final Configuration configuration;
+    private final String global;
+    private final Map<String, String> previous;
+    private final Map<String, String> current = new TreeMap<String, String>();
+    private int skipped;
+
+    private PageFingerprints(Configuration configuration, String global, Map<String, String> previous) {
+        this.configuration = configuration;
+        this.global = global;
+        this.previous = previous;
+    }
+
+    /**
+     * Read the manifest of the previous run and clear it.
+     *
+     * @param configuration the current configuration of the doclet
+     * @return the fingerprints or null when not running incrementally,
+     *   an archive is always written completely
+     * @throws IOException if the manifest cannot be cleared
+     */
+    public static PageFingerprints load(Configuration configuration) throws IOException {
+        DocFile manifest = DocFile.createFileForOutput(configuration, DocPaths.FINGERPRINTS);
+        if (!configuration.incremental || !configuration.destArchiveName.isEmpty()) {
+            if (manifest.exists()) {
+                write(manifest, "", new TreeMap<String, String>());
+            }
+            return null;
+        }
+        String global = globalFingerprint(configuration);
+        Map<String, String> previous = new HashMap<String, String>();
+        if (manifest.exists()) {
+            try (BufferedReader r = new BufferedReader(new InputStreamReader(
+                    manifest.openInputStream(), StandardCharsets.UTF_8))) {
+                if (HEADER.equals(r.readLine()) && (GLOBAL + global).equals(r.readLine())) {
+                    String line;
+                    while ((line = r.readLine()) != null) {
+                        int space = line.indexOf(' ');
+                        if (space > 0) {
+                            previous.put(line.substring(space + 1), line.substring(0, space));
+                        }
+                    }
+                }
+            }
+            write(manifest, "", new TreeMap<String, String>());
+        }
+        return new PageFingerprints(configuration, global, previous);
+    }
+
+    /**
+     * Record the fingerprint of a page about to be generated.
+     *
+     * @param page the path of the page
+     * @param fingerprint its fingerprint
+     * @return true if the page has been generated with the same
+     *         fingerprint before and does not need to be generated again
+     */
+    public boolean isUpToDate(DocPath page, String fingerprint) {
+        current.put(page.getPath(), fingerprint);
+        if (fingerprint.equals(previous.get(page.getPath()))
+                && DocFile.createFileForOutput(configuration, page).exists()) {
+            skipped++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Write the manifest of this run.
+     */
+    public void save() throws IOException {
+        if (skipped > 0) {
+            configuration.message.notice("doclet.Incremental_skipped", skipped);
+        }
+        write(DocFile.createFileForOutput(configuration, DocPaths.FINGERPRINTS), global, current);
+    }
+
+    private static void write(DocFile manifest, String global, Map<String, String> pages) throws IOException {
+        try (Writer w = new OutputStreamWriter(manifest.openOutputStream(), StandardCharsets.UTF_8)) {
+            w.write(HEADER);
+            w.write('\n');
+            w.write(GLOBAL);
+            w.write(global);
+            w.write('\n');
+            for (Map.Entry<String, String> e : pages.entrySet()) {
+                w.write(e.getValue());
+                w.write(' ');
+                w.write(e.getKey());
+                w.write('\n');
+            }
+        }
+    }
+
+    private static String globalFingerprint(Configuration configuration) {
+        Digest d = new Digest();
+        d.add(configuration.getDocletSpecificBuildDate());
+        d.add(docletCode());
+        for (String[] option : configuration.root.options()) {
+            d.add(Arrays.toString(option));
+        }
+        for (PackageDoc pd : configuration.packages) {
+            d.add(pd.name());
+        }
+        ClassDoc[] classes = configuration.root.classes();
+        String[] names = new String[classes.length];
+        for (int i = 0; i < classes.length; i++) {
+            names[i] = classes[i].qualifiedName();
+        }
+        Arrays.sort(names);
+        for (String name : names) {
+            d.add(name);
+        }
+        return d.finish();
+    }
+
+    /**
+     * Identifies the build of the doclet, so pages are generated again
+     * when the doclet itself changes.
+     */
+    private static String docletCode() {
+        try {
+            CodeSource source = PageFingerprints.class.getProtectionDomain().getCodeSource();
+            if (source == null) {
+                return "";
+            }
+            File code = new File(source.getLocation().toURI());
+            return code.getPath() + " " + code.length() + " " + code.lastModified();
+        } catch (URISyntaxException | IllegalArgumentException | SecurityException ex) {
+            return "";
+        }
+    }
+
+    /**
+     * Compute the fingerprint of the page of a class.
+     *
+     * @param cd the class being documented
+     * @param prev the previous class in the navigation bar
+     * @param next the next class in the navigation bar
+     * @param classtree the class tree used to list the subtypes
+     * @return the fingerprint
+     */
+    public String classFingerprint(ClassDoc cd, ClassDoc prev, ClassDoc next, ClassTree classtree) {
+        Digest d = new Digest();
+        d.add(prev == null ? "" : prev.qualifiedName());
+        d.add(next == null ? "" : next.qualifiedName());
+        addClass(d, cd);
+        for (ClassDoc nested : cd.innerClasses(false)) {
+            addClass(d, nested);
+        }
+        for (ClassDoc sup : supertypes(cd)) {
+            addClass(d, sup);
+        }
+        for (ClassDoc sub : classtree.subclasses(cd)) {
+            d.add(sub.qualifiedName());
+        }
+        for (ClassDoc sub : classtree.subinterfaces(cd)) {
+            d.add(sub.qualifiedName());
+        }
+        for (ClassDoc impl : classtree.implementingclasses(cd)) {
+            d.add(impl.qualifiedName());
+        }
+        return d.finish();
+    }
+
+    private static Set<ClassDoc> supertypes(ClassDoc cd) {
+        Set<ClassDoc> found = new LinkedHashSet<ClassDoc>();
+        addSupertypes(cd, found);
+        return found;
+    }
+
+    private static void addSupertypes(ClassDoc cd, Set<ClassDoc> found) {
+        ClassDoc sup = cd.superclass();
+        if (sup != null && found.add(sup)) {
+            addSupertypes(sup, found);
+        }
+        for (ClassDoc iface : cd.interfaces()) {
+            if (found.add(iface)) {
+                addSupertypes(iface, found);
+            }
+        }
+    }
+
+    private void addClass(Digest d, ClassDoc cd) {
+        d.add(cd.qualifiedName());
+        d.add(cd.modifiers());
+        d.add(String.valueOf(cd.isIncluded()));
+        addTypeParameters(d, cd.typeParameters());
+        addType(d, cd.superclassType());
+        for (Type iface : cd.interfaceTypes()) {
+            addType(d, iface);
+        }
+        addDoc(d, cd);
+        for (FieldDoc fd : cd.fields(false)) {
+            addType(d, fd.type());
+            d.add(fd.constantValueExpression());
+            addDoc(d, fd);
+        }
+        for (FieldDoc fd : cd.enumConstants()) {
+            addDoc(d, fd);
+        }
+        for (ConstructorDoc ctor : cd.constructors(false)) {
+            addExecutable(d, ctor);
+        }
+        for (MethodDoc md : cd.methods(false)) {
+            addType(d, md.returnType());
+            addExecutable(d, md);
+        }
+        if (cd instanceof AnnotationTypeDoc) {
+            for (AnnotationTypeElementDoc element : ((AnnotationTypeDoc) cd).elements()) {
+                d.add(String.valueOf(element.defaultValue()));
+                addExecutable(d, element);
+            }
+        }
+    }
+
+    private void addExecutable(Digest d, ExecutableMemberDoc member) {
+        d.add(member.signature());
+        addTypeParameters(d, member.typeParameters());
+        for (Parameter param : member.parameters()) {
+            d.add(param.name());
+            addType(d, param.type());
+            for (AnnotationDesc ann : param.annotations()) {
+                d.add(ann.toString());
+            }
+        }
+        for (Type ex : member.thrownExceptionTypes()) {
+            addType(d, ex);
+        }
+        addDoc(d, member);
+    }
+
+    private void addTypeParameters(Digest d, TypeVariable[] typeParameters) {
+        for (TypeVariable tv : typeParameters) {
+            d.add(tv.toString());
+            for (Type bound : tv.bounds()) {
+                addType(d, bound);
+            }
+        }
+    }
+
+    /**
+     * Add a type shown in a signature. Besides its name the link to it
+     * depends on the kind of each class it refers to and on whether the
+     * class is documented.
+     */
+    private void addType(Digest d, Type type) {
+        d.add(String.valueOf(type));
+        if (type != null) {
+            addTypeTargets(d, type);
+        }
+        d.add("");
+    }
+
+    private void addTypeTargets(Digest d, Type type) {
+        AnnotatedType annotated = type.asAnnotatedType();
+        if (annotated != null) {
+            for (AnnotationDesc ann : annotated.annotations()) {
+                d.add(ann.toString());
+            }
+            addTypeTargets(d, annotated.underlyingType());
+            return;
+        }
+        if (type.asTypeVariable() != null) {
+            return;
+        }
+        WildcardType wildcard = type.asWildcardType();
+        if (wildcard != null) {
+            for (Type bound : wildcard.extendsBounds()) {
+                addTypeTargets(d, bound);
+            }
+            for (Type bound : wildcard.superBounds()) {
+                addTypeTargets(d, bound);
+            }
+            return;
+        }
+        ClassDoc target = type.asClassDoc();
+        if (target != null) {
+            d.add(Util.getTypeName(configuration, target, false));
+            d.add(String.valueOf(target.isIncluded()));
+        }
+        ParameterizedType parameterized = type.asParameterizedType();
+        if (parameterized != null) {
+            for (Type arg : parameterized.typeArguments()) {
+                addTypeTargets(d, arg);
+            }
+        }
+    }
+
+    private void addDoc(Digest d, ProgramElementDoc doc) {
+        d.add(doc.name());
+        d.add(doc.modifiers());
+        d.add(doc.getRawCommentText());
+        for (AnnotationDesc ann : doc.annotations()) {
+            d.add(ann.toString());
+        }
+        if (configuration.linksource) {
+            SourcePosition sp = doc.position();
+            d.add(sp == null ? "" : Integer.toString(sp.line()));
+        }
+        for (Tag tag : doc.inlineTags()) {
+            addLink(d, tag);
+        }
+        for (Tag tag : doc.tags()) {
+            addLink(d, tag);
+            for (Tag inline : tag.inlineTags()) {
+                addLink(d, inline);
+            }
+        }
+    }
+
+    /**
+     * Add what the output of a tag depends on besides its own text.
+     */
+    private void addLink(Digest d, Tag tag) {
+        if (tag instanceof SeeTag) {
+            SeeTag see = (SeeTag) tag;
+            ClassDoc target = see.referencedClass();
+            if (target != null) {
+                d.add(target.qualifiedName());
+                d.add(Util.getTypeName(configuration, target, false));
+                d.add(String.valueOf(target.isIncluded()));
+            }
+            d.add("");
+            MemberDoc member = see.referencedMember();
+            if (member != null) {
+                d.add(member.qualifiedName());
+                d.add(String.valueOf(member.isIncluded()));
+                if (member instanceof ExecutableMemberDoc) {
+                    d.add(((ExecutableMemberDoc) member).signature());
+                }
+            }
+            d.add("");
+        } else if (tag.name().equals("@value")) {
+            FieldDoc field = ValueTaglet.getFieldDoc(configuration, tag, tag.text());
+            if (field != null) {
+                d.add(field.qualifiedName());
+                d.add(field.constantValueExpression());
+            }
+            d.add("");
+        }
+    }
+
+    private static final class Digest {
+        private final MessageDigest md;
+
+        Digest() {
+            try {
+                md = MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        void add(String s) {
+            if (s != null) {
+                md.update(s.getBytes(StandardCharsets.UTF_8));
+            }
+            md.update((byte) 0);
+        }
+
+        String finish() {
+            StringBuilder sb = new StringBuilder();
+            for (byte b : md.digest()) {
+                sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+                sb.append(Character.forDigit(b & 0xf, 16));
+            }
+            return sb.toString();
+        }
+    }
+}
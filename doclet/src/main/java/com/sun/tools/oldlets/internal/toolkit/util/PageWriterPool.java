@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.oldlets.internal.toolkit.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.sun.tools.oldlets.internal.toolkit.Configuration;
+import com.sun.tools.oldlets.internal.toolkit.Content;
+
+/**
+ * Writes finished pages on a pool of worker threads.
+ *
+ * The content of a page is built on the thread running the doclet, as
+ * the documentation model and the compiler behind it may only be used
+ * from a single thread. Once built the content tree is only read, so
+ * serializing it, encoding the characters and writing them out can be
+ * done in parallel. Each page is written by a single task, so the
+ * bytes of the generated files do not depend on the number of threads.
+ *
+ * Files are opened on the calling thread. A page written to the same
+ * path again waits until the previous write of that path completes.
+ * The number of pages waiting for a worker is bounded, so the memory
+ * held by content trees does not grow with the size of the API.
+ * Failures are reported on the calling thread when the next page is
+ * submitted or when the pool is finished.
+ *
+ *  <p><b>This is NOT part of any supported API.
+ *  If you write code that depends on this, you do so at your own risk.
+ *  This code and its internal interfaces are subject to change or
+ *  deletion without notice.</b>
+ */
+public class PageWriterPool {
+    private static final int PAGES_PER_THREAD = 4;
+
+    private final Configuration configuration;
+    private final ExecutorService executor;
+    private final Semaphore waiting;
+    private final Map<String, Page> inProgress = new ConcurrentHashMap<>();
+    private final AtomicReference<Page> failure = new AtomicReference<>();
+    private boolean reported;
+
+    /**
+     * Create a pool of writer threads.
+     *
+     * @param configuration the configuration used to report failures
+     * @param threads number of threads writing the pages
+     */
+    public PageWriterPool(Configuration configuration, int threads) {
+        this.configuration = configuration;
+        this.executor = Executors.newFixedThreadPool(threads, new Daemons());
+        this.waiting = new Semaphore(threads * PAGES_PER_THREAD);
+    }
+
+    /**
+     * Write the content into the file on one of the worker threads.
+     *
+     * @param file the file to write
+     * @param content the page to write, it must not be modified anymore
+     * @throws IOException if the file cannot be opened
+     */
+    public void write(DocFile file, Content content) throws IOException {
+        checkFailure();
+        String path = file.getPath();
+        Page previous = inProgress.get(path);
+        if (previous != null) {
+            previous.await();
+        }
+        try {
+            waiting.acquire();
+        } catch (InterruptedException ex) {
+            throw new InterruptedIOException(path);
+        }
+        Writer writer;
+        try {
+            writer = file.openWriter();
+        } catch (IOException | RuntimeException ex) {
+            waiting.release();
+            throw ex;
+        }
+        Page page = new Page(path, writer, content);
+        inProgress.put(path, page);
+        executor.execute(page);
+    }
+
+    /**
+     * Wait for all submitted pages to be written.
+     *
+     * @throws DocletAbortException if any of the pages failed to be written
+     */
+    public void finish() {
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                // keep waiting, there may be many pages left
+            }
+        } catch (InterruptedException ex) {
+            throw new DocletAbortException(ex);
+        }
+        checkFailure();
+    }
+
+    /**
+     * Stop accepting pages, without waiting for the written ones.
+     * Used when the generation has been aborted.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void checkFailure() {
+        Page failed = failure.get();
+        if (failed == null || reported) {
+            return;
+        }
+        reported = true;
+        configuration.message.error("doclet.exception_encountered",
+                failed.exception.toString(), failed.path);
+        throw new DocletAbortException(failed.exception);
+    }
+
+    private final class Page implements Runnable {
+        final String path;
+        private final Writer writer;
+        private final Content content;
+        private final CountDownLatch done = new CountDownLatch(1);
+        Exception exception;
+
+        Page(String path, Writer writer, Content content) {
+            this.path = path;
+            this.writer = writer;
+            this.content = content;
+        }
+
+        @Override
+        public void run() {
+            try (Writer w = writer) {
+                content.write(w, true);
+            } catch (IOException | RuntimeException ex) {
+                exception = ex;
+                failure.compareAndSet(null, this);
+            } finally {
+                inProgress.remove(path, this);
+                waiting.release();
+                done.countDown();
+            }
+        }
+
+        void await() throws InterruptedIOException {
+            try {
+                done.await();
+            } catch (InterruptedException ex) {
+                throw new InterruptedIOException(path);
+            }
+        }
+    }
+
+    private static final class Daemons implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "javadoc-page-writer-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -154,7 +154,7 @@ class StandardDocFileFactory extends DocFileFactory {
             if (location != DocumentationTool.Location.DOCUMENTATION_OUTPUT)
                 throw new IllegalStateException();
 
-            OutputStream out = getFileObjectForOutput(path).openOutputStream();
+            OutputStream out = openOutput();
             return new BufferedOutputStream(out);
         }
 
@@ -168,7 +168,7 @@ class StandardDocFileFactory extends DocFileFactory {
             if (location != DocumentationTool.Location.DOCUMENTATION_OUTPUT)
                 throw new IllegalStateException();
 
-            OutputStream out = getFileObjectForOutput(path).openOutputStream();
+            OutputStream out = openOutput();
             if (configuration.docencoding == null) {
                 return new BufferedWriter(new OutputStreamWriter(out));
             } else {
@@ -298,6 +298,17 @@ class StandardDocFileFactory extends DocFileFactory {
             return fileManager.getJavaFileObjects(file).iterator().next();
         }
 
+        /**
+         * Open the output, replacing the file only when the content changes
+         * if the "-keepunchanged" option is used.
+         */
+        private OutputStream openOutput() throws IOException {
+            if (configuration.keepunchanged) {
+                return new ChangedFileOutputStream(file);
+            }
+            return getFileObjectForOutput(path).openOutputStream();
+        }
+
         private FileObject getFileObjectForOutput(DocPath path) throws IOException {
             // break the path into a package-part and the rest, by finding
             // the position of the last '/' before an invalid character for a
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package com.sun.tools.oldlets.internal.toolkit.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.ProgramElementDoc;
+
+import com.sun.tools.oldlets.internal.toolkit.Configuration;
+
+/**
+ * The visible members of classes computed during one run of the doclet.
+ *
+ * Finding the visible members walks all the superclasses and interfaces
+ * of a class, so the summary, the detail sections and the constant
+ * pages of a class share one {@link VisibleMemberMap} of each kind
+ * instead of computing their own. The cache also keeps the JavaFX
+ * properties found while computing the maps. It is created when the
+ * generation starts and dropped when it ends, see
+ * {@link Configuration#visibleMemberCache}.
+ *
+ *  <p><b>This is NOT part of any supported API.
+ *  If you write code that depends on this, you do so at your own risk.
+ *  This code and its internal interfaces are subject to change or
+ *  deletion without notice.</b>
+ */
+public class VisibleMemberCache {
+    private final Configuration configuration;
+    private final ConcurrentMap<Key, VisibleMemberMap> maps =
+            new ConcurrentHashMap<Key, VisibleMemberMap>();
+
+    final Map<ClassDoc, ProgramElementDoc[]> propertiesCache =
+            new ConcurrentHashMap<ClassDoc, ProgramElementDoc[]>();
+    final Map<ProgramElementDoc, ProgramElementDoc> classPropertiesMap =
+            new ConcurrentHashMap<ProgramElementDoc, ProgramElementDoc>();
+    final Map<ProgramElementDoc, VisibleMemberMap.GetterSetter> getterSetterMap =
+            new ConcurrentHashMap<ProgramElementDoc, VisibleMemberMap.GetterSetter>();
+
+    /**
+     * Create an empty cache.
+     *
+     * @param configuration the configuration the maps are computed with
+     */
+    public VisibleMemberCache(Configuration configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * Return the visible members of the given kind of the class. They are
+     * computed when first requested.
+     *
+     * @param classdoc the class whose members are requested
+     * @param kind the kind of the members, e.g. {@link VisibleMemberMap#METHODS}
+     * @return the shared map of the visible members
+     */
+    public VisibleMemberMap get(ClassDoc classdoc, int kind) {
+        Key key = new Key(classdoc, kind);
+        VisibleMemberMap map = maps.get(key);
+        if (map == null) {
+            map = new VisibleMemberMap(classdoc, kind, configuration, this);
+            VisibleMemberMap previous = maps.putIfAbsent(key, map);
+            if (previous != null) {
+                map = previous;
+            }
+        }
+        return map;
+    }
+
+    private static final class Key {
+        private final ClassDoc classdoc;
+        private final int kind;
+
+        Key(ClassDoc classdoc, int kind) {
+            this.classdoc = classdoc;
+            this.kind = kind;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return kind == other.kind && classdoc.equals(other.classdoc);
+        }
+
+        @Override
+        public int hashCode() {
+            return classdoc.hashCode() * 31 + kind;
+        }
+    }
+}
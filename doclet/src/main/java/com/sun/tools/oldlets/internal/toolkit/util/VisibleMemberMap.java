@@ -107,12 +107,30 @@ public class VisibleMemberMap {
      */
     private final Configuration configuration;
 
-    private static final Map<ClassDoc, ProgramElementDoc[]> propertiesCache =
-            new HashMap<ClassDoc, ProgramElementDoc[]>();
-    private static final Map<ProgramElementDoc, ProgramElementDoc> classPropertiesMap =
-            new HashMap<ProgramElementDoc, ProgramElementDoc>();
-    private static final Map<ProgramElementDoc, GetterSetter> getterSetterMap =
-            new HashMap<ProgramElementDoc, GetterSetter>();
+    /**
+     * The cache this map belongs to, it also holds the JavaFX properties.
+     */
+    private final VisibleMemberCache cache;
+
+    /**
+     * Return the VisibleMemberMap of the given type for the given class.
+     * The map is shared during the generation, see
+     * {@link Configuration#visibleMemberCache}.
+     *
+     * @param classdoc the class whose members are being mapped.
+     * @param kind the kind of member that is being mapped.
+     * @param configuration the configuration of the doclet.
+     * @return the map of the visible members.
+     */
+    public static VisibleMemberMap getInstance(ClassDoc classdoc,
+                                               int kind,
+                                               Configuration configuration) {
+        VisibleMemberCache cache = configuration.visibleMemberCache;
+        if (cache == null) {
+            return new VisibleMemberMap(classdoc, kind, configuration);
+        }
+        return cache.get(classdoc, kind);
+    }
 
     /**
      * Construct a VisibleMemberMap of the given type for the given
@@ -128,20 +146,28 @@ public class VisibleMemberMap {
     public VisibleMemberMap(ClassDoc classdoc,
                             int kind,
                             Configuration configuration) {
+        this(classdoc, kind, configuration, new VisibleMemberCache(configuration));
+    }
+
+    VisibleMemberMap(ClassDoc classdoc,
+                     int kind,
+                     Configuration configuration,
+                     VisibleMemberCache cache) {
         this.classdoc = classdoc;
         this.kind = kind;
         this.configuration = configuration;
+        this.cache = cache;
         new ClassMembers(classdoc, STARTLEVEL).build();
     }
 
     /**
-     * Return the list of visible classes in this map.
+     * Return the list of visible classes in this map, classes followed
+     * by interfaces.
      *
      * @return the list of visible classes in this map.
      */
     public List<ClassDoc> getVisibleClassesList() {
-        sort(visibleClasses);
-        return visibleClasses;
+        return sort(visibleClasses);
     }
 
     /**
@@ -150,7 +176,7 @@ public class VisibleMemberMap {
      * @return the property field documentation, null if there is none.
      */
     public ProgramElementDoc getPropertyMemberDoc(ProgramElementDoc ped) {
-        return classPropertiesMap.get(ped);
+        return cache.classPropertiesMap.get(ped);
     }
 
     /**
@@ -159,7 +185,7 @@ public class VisibleMemberMap {
      * @return the getter documentation, null if there is none.
      */
     public ProgramElementDoc getGetterForProperty(ProgramElementDoc propertyMethod) {
-        return getterSetterMap.get(propertyMethod).getGetter();
+        return cache.getterSetterMap.get(propertyMethod).getGetter();
     }
 
     /**
@@ -168,7 +194,7 @@ public class VisibleMemberMap {
      * @return the setter documentation, null if there is none.
      */
     public ProgramElementDoc getSetterForProperty(ProgramElementDoc propertyMethod) {
-        return getterSetterMap.get(propertyMethod).getSetter();
+        return cache.getterSetterMap.get(propertyMethod).getSetter();
     }
 
     /**
@@ -201,7 +227,7 @@ public class VisibleMemberMap {
      * @param configuration the current configuration of the doclet.
      */
     public List<ProgramElementDoc> getLeafClassMembers(Configuration configuration) {
-        List<ProgramElementDoc> result = getMembersFor(classdoc);
+        List<ProgramElementDoc> result = new ArrayList<ProgramElementDoc>(getMembersFor(classdoc));
         result.addAll(getInheritedPackagePrivateMethods(configuration));
         return result;
     }
@@ -211,21 +237,21 @@ public class VisibleMemberMap {
      *
      * @param cd the class to retrieve the list of visible members for.
      *
-     * @return the list of members for the given class.
+     * @return the unmodifiable list of members for the given class.
      */
     public List<ProgramElementDoc> getMembersFor(ClassDoc cd) {
         ClassMembers clmembers = classMap.get(cd);
         if (clmembers == null) {
-            return new ArrayList<ProgramElementDoc>();
+            return Collections.emptyList();
         }
-        return clmembers.getMembers();
+        return Collections.unmodifiableList(clmembers.getMembers());
     }
 
     /**
      * Sort the given mixed list of classes and interfaces to a list of
      * classes followed by interfaces traversed. Don't sort alphabetically.
      */
-    private void sort(List<ClassDoc> list) {
+    private static List<ClassDoc> sort(List<ClassDoc> list) {
         List<ClassDoc> classes = new ArrayList<ClassDoc>();
         List<ClassDoc> interfaces = new ArrayList<ClassDoc>();
         for (int i = 0; i < list.size(); i++) {
@@ -236,9 +262,8 @@ public class VisibleMemberMap {
                 interfaces.add(cd);
             }
         }
-        list.clear();
-        list.addAll(classes);
-        list.addAll(interfaces);
+        classes.addAll(interfaces);
+        return classes;
     }
 
     private void fillMemberLevelMap(List<ProgramElementDoc> list, String level) {
@@ -544,8 +569,9 @@ public class VisibleMemberMap {
             final MethodDoc[] allMethods = cd.methods(filter);
             final FieldDoc[] allFields = cd.fields(false);
 
-            if (propertiesCache.containsKey(cd)) {
-                return propertiesCache.get(cd);
+            ProgramElementDoc[] cached = cache.propertiesCache.get(cd);
+            if (cached != null) {
+                return cached;
             }
 
             final List<MethodDoc> result = new ArrayList<MethodDoc>();
@@ -561,12 +587,12 @@ public class VisibleMemberMap {
                 final FieldDoc field = fieldForProperty(allFields, propertyMethod);
 
                 addToPropertiesMap(setter, getter, propertyMethod, field);
-                getterSetterMap.put(propertyMethod, new GetterSetter(getter, setter));
+                cache.getterSetterMap.put(propertyMethod, new GetterSetter(getter, setter));
                 result.add(propertyMethod);
             }
             final ProgramElementDoc[] resultAray =
                     result.toArray(new ProgramElementDoc[result.size()]);
-            propertiesCache.put(cd, resultAray);
+            cache.propertiesCache.put(cd, resultAray);
             return resultAray;
         }
 
@@ -600,7 +626,7 @@ public class VisibleMemberMap {
              */
             if ((null == methodRawCommentText || 0 == methodRawCommentText.length())
                     || propertyMethod.equals(commentSource)) {
-                classPropertiesMap.put(propertyMethod, commentSource);
+                cache.classPropertiesMap.put(propertyMethod, commentSource);
             }
         }
 
@@ -723,7 +749,7 @@ public class VisibleMemberMap {
         }
     }
 
-    private class GetterSetter {
+    static class GetterSetter {
         private final ProgramElementDoc getter;
         private final ProgramElementDoc setter;
 
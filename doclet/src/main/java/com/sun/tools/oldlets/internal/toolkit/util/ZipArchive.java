@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package com.sun.tools.oldlets.internal.toolkit.util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes the entries of a zip or jar archive.
+ *
+ * Entries are compressed by {@link #compress} on the calling thread and
+ * then appended to the archive by {@link #add}, so pages written by the
+ * {@link PageWriterPool} are deflated in parallel. The central directory
+ * is written when the archive is closed, using the Zip64 format if
+ * there are too many entries or the archive is too large for the plain
+ * one.
+ *
+ *  <p><b>This is NOT part of any supported API.
+ *  If you write code that depends on this, you do so at your own risk.
+ *  This code and its internal interfaces are subject to change or
+ *  deletion without notice.</b>
+ */
+class ZipArchive {
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_OF_CENTRAL = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL = 0x06064b50;
+    private static final int ZIP64_LOCATOR = 0x07064b50;
+    private static final int UTF8_NAMES = 0x0800;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    private static final long MAX_32 = 0xFFFFFFFFL;
+    private static final int MAX_16 = 0xFFFF;
+
+    private final OutputStream out;
+    private final int dosTime;
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+    private long offset;
+    private boolean closed;
+
+    /**
+     * Create the archive, replacing any existing file.
+     *
+     * @param file the archive to create
+     */
+    ZipArchive(Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        this.out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16);
+        this.dosTime = dosTime(LocalDateTime.now());
+    }
+
+    /**
+     * Compress the content of an entry. May be called from any thread.
+     *
+     * @param name the name of the entry
+     * @param data buffer with the content
+     * @param len number of bytes of the content
+     * @return the entry to {@link #add}
+     */
+    static Entry compress(String name, byte[] data, int len) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, len);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(data, 0, len);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(len / 3 + 64);
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                compressed.write(chunk, 0, n);
+            }
+            if (compressed.size() < len) {
+                return new Entry(name, DEFLATED, crc.getValue(), len, compressed.toByteArray(), compressed.size());
+            }
+            return new Entry(name, STORED, crc.getValue(), len, data, len);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Append a compressed entry. An entry with the same name written
+     * before is replaced.
+     */
+    synchronized void add(Entry e) throws IOException {
+        if (closed) {
+            throw new IOException("Archive has already been closed: " + e.name);
+        }
+        e.offset = offset;
+        byte[] name = e.name.getBytes(StandardCharsets.UTF_8);
+        writeInt(LOCAL_HEADER);
+        writeShort(20);
+        writeShort(UTF8_NAMES);
+        writeShort(e.method);
+        writeInt(dosTime);
+        writeInt((int) e.crc);
+        writeInt(e.compressedSize);
+        writeInt(e.size);
+        writeShort(name.length);
+        writeShort(0);
+        write(name, name.length);
+        write(e.data, e.compressedSize);
+        e.data = null;
+        entries.remove(e.name);
+        entries.put(e.name, e);
+    }
+
+    /** Return true if an entry of the given name has been added. */
+    synchronized boolean contains(String name) {
+        return entries.containsKey(name);
+    }
+
+    /**
+     * Write the central directory and close the archive.
+     */
+    synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            long start = offset;
+            boolean zip64 = entries.size() >= MAX_16 || start >= MAX_32;
+            for (Entry e : entries.values()) {
+                byte[] name = e.name.getBytes(StandardCharsets.UTF_8);
+                boolean farOffset = e.offset >= MAX_32;
+                writeInt(CENTRAL_HEADER);
+                writeShort(farOffset ? 45 : 20);
+                writeShort(farOffset ? 45 : 20);
+                writeShort(UTF8_NAMES);
+                writeShort(e.method);
+                writeInt(dosTime);
+                writeInt((int) e.crc);
+                writeInt(e.compressedSize);
+                writeInt(e.size);
+                writeShort(name.length);
+                writeShort(farOffset ? 12 : 0);
+                writeShort(0);
+                writeShort(0);
+                writeShort(0);
+                writeInt(0);
+                writeInt(farOffset ? (int) MAX_32 : (int) e.offset);
+                write(name, name.length);
+                if (farOffset) {
+                    writeShort(0x0001);
+                    writeShort(8);
+                    writeLong(e.offset);
+                }
+            }
+            long size = offset - start;
+            if (zip64 || size >= MAX_32) {
+                long end64 = offset;
+                writeInt(ZIP64_END_OF_CENTRAL);
+                writeLong(44);
+                writeShort(45);
+                writeShort(45);
+                writeInt(0);
+                writeInt(0);
+                writeLong(entries.size());
+                writeLong(entries.size());
+                writeLong(size);
+                writeLong(start);
+                writeInt(ZIP64_LOCATOR);
+                writeInt(0);
+                writeLong(end64);
+                writeInt(1);
+            }
+            int count = Math.min(entries.size(), MAX_16);
+            writeInt(END_OF_CENTRAL);
+            writeShort(0);
+            writeShort(0);
+            writeShort(count);
+            writeShort(count);
+            writeInt((int) Math.min(size, MAX_32));
+            writeInt((int) Math.min(start, MAX_32));
+            writeShort(0);
+        } finally {
+            out.close();
+        }
+    }
+
+    private void write(byte[] b, int len) throws IOException {
+        out.write(b, 0, len);
+        offset += len;
+    }
+
+    private void writeShort(int v) throws IOException {
+        out.write(v & 0xff);
+        out.write((v >>> 8) & 0xff);
+        offset += 2;
+    }
+
+    private void writeInt(int v) throws IOException {
+        writeShort(v & 0xffff);
+        writeShort((v >>> 16) & 0xffff);
+    }
+
+    private void writeLong(long v) throws IOException {
+        writeInt((int) v);
+        writeInt((int) (v >>> 32));
+    }
+
+    private static int dosTime(LocalDateTime t) {
+        int year = Math.max(t.getYear(), 1980);
+        return (year - 1980) << 25 | t.getMonthValue() << 21 | t.getDayOfMonth() << 16
+                | t.getHour() << 11 | t.getMinute() << 5 | t.getSecond() >> 1;
+    }
+
+    /**
+     * An entry compressed and ready to be added.
+     */
+    static final class Entry {
+        final String name;
+        final int method;
+        final long crc;
+        final int size;
+        final int compressedSize;
+        byte[] data;
+        long offset;
+
+        Entry(String name, int method, long crc, int size, byte[] data, int compressedSize) {
+            this.name = name;
+            this.method = method;
+            this.crc = crc;
+            this.size = size;
+            this.data = data;
+            this.compressedSize = compressedSize;
+        }
+    }
+}
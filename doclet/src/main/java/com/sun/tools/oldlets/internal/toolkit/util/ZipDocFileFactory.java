@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package com.sun.tools.oldlets.internal.toolkit.util;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Collections;
+
+import javax.tools.DocumentationTool;
+import javax.tools.JavaFileManager.Location;
+
+import com.sun.tools.oldlets.internal.toolkit.Configuration;
+import com.sun.tools.javac.util.StringUtils;
+
+/**
+ * Implementation of DocFileFactory writing the documentation into a zip
+ * or jar archive, used when the "-d" option names a file ending with
+ * ".zip" or ".jar". Input files are read by the factory of the file
+ * manager.
+ *
+ * The content of each output file is kept in memory until the file is
+ * closed. It is then compressed on the closing thread, which is one of
+ * the threads of the {@link PageWriterPool} when the "-writethreads"
+ * option is used, and appended to the archive. The archive is created
+ * when the first file is written and completed by
+ * {@link DocFile#finishOutput}.
+ *
+ *  <p><b>This is NOT part of any supported API.
+ *  If you write code that depends on this, you do so at your own risk.
+ *  This code and its internal interfaces are subject to change or
+ *  deletion without notice.</b>
+ */
+class ZipDocFileFactory extends DocFileFactory {
+    private static final DocPath MANIFEST = DocPath.create("META-INF/MANIFEST.MF");
+
+    private final DocFileFactory inputs;
+    private ZipArchive archive;
+
+    ZipDocFileFactory(Configuration configuration, DocFileFactory inputs) {
+        super(configuration);
+        this.inputs = inputs;
+    }
+
+    public DocFile createFileForDirectory(String file) {
+        return inputs.createFileForDirectory(file);
+    }
+
+    public DocFile createFileForInput(String file) {
+        return inputs.createFileForInput(file);
+    }
+
+    public DocFile createFileForOutput(DocPath path) {
+        return new ZipDocFile(path);
+    }
+
+    @Override
+    Iterable<DocFile> list(Location location, DocPath path) {
+        return inputs.list(location, path);
+    }
+
+    @Override
+    synchronized void finishOutput() throws IOException {
+        if (archive != null) {
+            archive.close();
+            archive = null;
+        }
+    }
+
+    private synchronized ZipArchive getArchive() throws IOException {
+        if (archive == null) {
+            String name = configuration.destArchiveName;
+            ZipArchive created = new ZipArchive(Paths.get(name));
+            if (StringUtils.toLowerCase(name).endsWith(".jar")) {
+                byte[] manifest = "Manifest-Version: 1.0\r\n\r\n".getBytes(StandardCharsets.UTF_8);
+                created.add(ZipArchive.compress(MANIFEST.getPath(), manifest, manifest.length));
+            }
+            archive = created;
+        }
+        return archive;
+    }
+
+    private synchronized boolean contains(DocPath path) {
+        return archive != null && archive.contains(path.getPath());
+    }
+
+    class ZipDocFile extends DocFile {
+
+        /** Create a ZipDocFile for an entry of the archive. */
+        private ZipDocFile(DocPath path) {
+            super(configuration, DocumentationTool.Location.DOCUMENTATION_OUTPUT, path);
+        }
+
+        /** Entries are only written. */
+        public InputStream openInputStream() throws IOException {
+            throw new IOException("Cannot read " + getPath());
+        }
+
+        /** Open an output stream for the entry. */
+        public OutputStream openOutputStream() throws IOException, UnsupportedEncodingException {
+            return new EntryOutputStream(path.getPath(), getArchive());
+        }
+
+        /**
+         * Open an writer for the entry, using the encoding (if any) given in the
+         * doclet configuration.
+         */
+        public Writer openWriter() throws IOException, UnsupportedEncodingException {
+            OutputStream out = openOutputStream();
+            if (configuration.docencoding == null) {
+                return new BufferedWriter(new OutputStreamWriter(out));
+            } else {
+                return new BufferedWriter(new OutputStreamWriter(out, configuration.docencoding));
+            }
+        }
+
+        /** Entries cannot be read. */
+        public boolean canRead() {
+            return false;
+        }
+
+        /** Return true, entries can always be written. */
+        public boolean canWrite() {
+            return true;
+        }
+
+        /** Return true if the entry has already been written. */
+        public boolean exists() {
+            return contains(path);
+        }
+
+        /** Return the base name (last component) of the entry name. */
+        public String getName() {
+            String p = path.getPath();
+            return p.substring(p.lastIndexOf('/') + 1);
+        }
+
+        /** Return the path of the entry inside the archive. */
+        public String getPath() {
+            return configuration.destArchiveName + "!/" + path.getPath();
+        }
+
+        /** Return false, entries are relative to the archive. */
+        public boolean isAbsolute() {
+            return false;
+        }
+
+        /** Return false, the archive contains only files. */
+        public boolean isDirectory() {
+            return false;
+        }
+
+        /** Return true if the entry has already been written. */
+        public boolean isFile() {
+            return exists();
+        }
+
+        /** Return false, entries are never the same as input files. */
+        public boolean isSameFile(DocFile other) {
+            return false;
+        }
+
+        /** Return an empty list, the archive contains only files. */
+        public Iterable<DocFile> list() {
+            return Collections.emptyList();
+        }
+
+        /** Return true, directories are implied by the names of the entries. */
+        public boolean mkdirs() {
+            return true;
+        }
+
+        /**
+         * Derive a new entry by resolving a relative path against this one.
+         */
+        public DocFile resolve(DocPath p) {
+            return resolve(p.getPath());
+        }
+
+        /**
+         * Derive a new entry by resolving a relative path against this one.
+         */
+        public DocFile resolve(String p) {
+            return new ZipDocFile(path.resolve(p));
+        }
+
+        /** Entries are already relative to the output location. */
+        public DocFile resolveAgainst(Location locn) {
+            throw new IllegalStateException();
+        }
+
+        /** Return a string to identify the contents of this object,
+         * for debugging purposes.
+         */
+        @Override
+        public String toString() {
+            return "ZipDocFile[" + getPath() + "]";
+        }
+    }
+
+    /**
+     * Collects the content of an entry and adds it to the archive when
+     * closed.
+     */
+    private static final class EntryOutputStream extends ByteArrayOutputStream {
+        private final String name;
+        private final ZipArchive archive;
+        private boolean closed;
+
+        EntryOutputStream(String name, ZipArchive archive) {
+            super(8192);
+            this.name = name;
+            this.archive = archive;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            archive.add(ZipArchive.compress(name, buf, count));
+            buf = null;
+        }
+    }
+}
@@ -218,12 +218,11 @@ public class JavadocTool extends com.sun.tools.javac.main.JavaCompiler {
 
                 if (files.isEmpty())
                     messager.warning(Messager.NOPOS, "main.no_source_files_for_package", packageName);
-                allTrees.addAll(classTrees);
                 parse(files, allTrees, false);
             }
             if (m != null) {
                 SymbolKind.invokeOrNull(m, "newRound");
-                SymbolKind.invokeOrNull(m, "initModules", allTrees.toList());
+                SymbolKind.invokeOrNull(m, "initModules", classTrees.toList().appendList(allTrees.toList()));
             }
 
             if (messager.nerrors() != 0) {
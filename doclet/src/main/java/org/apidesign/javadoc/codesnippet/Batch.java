@@ -0,0 +1,55 @@
+/**
+ * Codesnippet Javadoc Doclet
+ * Copyright (C) 2015-2020 Jaroslav Tulach - jaroslav.tulach@apidesign.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.0 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://opensource.org/licenses/GPL-3.0.
+ */
+package org.apidesign.javadoc.codesnippet;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/** Applies an action to a range of items, splitting the range among
+ * threads of a {@link java.util.concurrent.ForkJoinPool}.
+ */
+final class Batch<T> extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private final transient List<T> items;
+    private final int from;
+    private final int to;
+    private final transient Consumer<T> action;
+
+    Batch(List<T> items, int from, int to, Consumer<T> action) {
+        this.items = items;
+        this.from = from;
+        this.to = to;
+        this.action = action;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= 8) {
+            for (int i = from; i < to; i++) {
+                action.accept(items.get(i));
+            }
+        } else {
+            int middle = (from + to) >>> 1;
+            invokeAll(
+                new Batch<>(items, from, middle, action),
+                new Batch<>(items, middle, to, action)
+            );
+        }
+    }
+}
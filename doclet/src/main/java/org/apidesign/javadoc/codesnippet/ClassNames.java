@@ -0,0 +1,155 @@
+/**
+ * Codesnippet Javadoc Doclet
+ * Copyright (C) 2015-2020 Jaroslav Tulach - jaroslav.tulach@apidesign.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.0 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://opensource.org/licenses/GPL-3.0.
+ */
+package org.apidesign.javadoc.codesnippet;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/** Resolves simple names in imported packages without loading the classes.
+ * Packages of the JDK are listed once from its module image, other packages
+ * are looked up as {@code .class} resources. Both positive and negative
+ * results are remembered in bounded caches shared by all the snippets.
+ */
+final class ClassNames {
+    private static final int MAX_PACKAGES = 1024;
+    private static final int MAX_NAMES = 16384;
+    private static final Set<String> NOT_IN_IMAGE = Collections.unmodifiableSet(new HashSet<String>());
+    private static final Map<String, Set<String>> PACKAGES = new Bounded<>(MAX_PACKAGES);
+    private static final Map<String, Boolean> NAMES = new Bounded<>(MAX_NAMES);
+    private static final FileSystem IMAGE = openImage();
+
+    private ClassNames() {
+    }
+
+    /** Finds a class in given package.
+     *
+     * @param pkg the package name
+     * @param name simple name of the class
+     * @return fully qualified name or {@code null} if there is no such class
+     */
+    static String find(String pkg, String name) {
+        Set<String> listed = listPackage(pkg);
+        if (listed != NOT_IN_IMAGE) {
+            return listed.contains(name) ? pkg + "." + name : null;
+        }
+        String fqn = pkg + "." + name;
+        Boolean known;
+        synchronized (NAMES) {
+            known = NAMES.get(fqn);
+        }
+        if (known == null) {
+            ClassLoader loader = ClassNames.class.getClassLoader();
+            String resource = fqn.replace('.', '/') + ".class";
+            known = loader == null ? ClassLoader.getSystemResource(resource) != null : loader.getResource(resource) != null;
+            synchronized (NAMES) {
+                NAMES.put(fqn, known);
+            }
+        }
+        return known ? fqn : null;
+    }
+
+    /** Describes where the names are resolved from. Output that depends on
+     * {@link #find} is valid only as long as this description stays the same.
+     *
+     * @return the Java version and the class path used for the lookup
+     */
+    static String lookupPath() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(System.getProperty("java.version")).append('\n');
+        sb.append(System.getProperty("java.class.path")).append('\n');
+        for (ClassLoader l = ClassNames.class.getClassLoader(); l != null; l = l.getParent()) {
+            if (l instanceof URLClassLoader) {
+                for (URL url : ((URLClassLoader) l).getURLs()) {
+                    sb.append(url).append('\n');
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static Set<String> listPackage(String pkg) {
+        if (IMAGE == null) {
+            return NOT_IN_IMAGE;
+        }
+        Set<String> names;
+        synchronized (PACKAGES) {
+            names = PACKAGES.get(pkg);
+        }
+        if (names == null) {
+            names = NOT_IN_IMAGE;
+            Path modules = IMAGE.getPath("/packages", pkg);
+            if (Files.isDirectory(modules)) {
+                Set<String> found = new HashSet<>();
+                try (DirectoryStream<Path> mods = Files.newDirectoryStream(modules)) {
+                    for (Path mod : mods) {
+                        Path dir = IMAGE.getPath("/modules", mod.getFileName().toString(), pkg.replace('.', '/'));
+                        try (DirectoryStream<Path> classes = Files.newDirectoryStream(dir, "*.class")) {
+                            for (Path c : classes) {
+                                String file = c.getFileName().toString();
+                                found.add(file.substring(0, file.length() - 6));
+                            }
+                        }
+                    }
+                    names = found;
+                } catch (IOException ex) {
+                    // fall back to resource lookup
+                }
+            }
+            synchronized (PACKAGES) {
+                PACKAGES.put(pkg, names);
+            }
+        }
+        return names;
+    }
+
+    private static FileSystem openImage() {
+        try {
+            return FileSystems.getFileSystem(URI.create("jrt:/"));
+        } catch (RuntimeException ex) {
+            // JDK 8 has no module image
+            return null;
+        }
+    }
+
+    private static final class Bounded<K, V> extends LinkedHashMap<K, V> {
+        static final long serialVersionUID = 1L;
+        private final int max;
+
+        Bounded(int max) {
+            super(64, 0.75f, true);
+            this.max = max;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > max;
+        }
+    }
+}
@@ -18,7 +18,9 @@
 package org.apidesign.javadoc.codesnippet;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.nio.charset.Charset;
 import java.nio.charset.MalformedInputException;
 import java.nio.file.FileVisitResult;
@@ -26,20 +28,23 @@ import java.nio.file.FileVisitor;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.Stack;
 import java.util.TreeMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 final class CodeSnippet implements CharSequence {
-    private StringBuilder sb = new StringBuilder();
+    private final StringBuilder sb = new StringBuilder();
     private int spaces = Integer.MAX_VALUE;
-    private Stack<Integer> remove = new Stack<Integer>();
+    private int[] lineStarts = new int[16];
+    private int lineCount;
+    private String text;
     private final Path file;
     private final Snippets snippets;
 
@@ -61,63 +66,86 @@ final class CodeSnippet implements CharSequence {
     }
 
     void append(String line) {
-        for (int sp = 0; sp < line.length(); sp++) {
-            if (line.charAt(sp) != ' ') {
-                if (sp < spaces) {
-                    spaces = sp;
-                    break;
-                }
-            }
+        int sp = 0;
+        while (sp < line.length() && line.charAt(sp) == ' ') {
+            sp++;
+        }
+        if (sp < line.length() && sp < spaces) {
+            spaces = sp;
         }
-        remove.push(sb.length());
+        if (lineCount == lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+        }
+        lineStarts[lineCount++] = sb.length();
         sb.append(line);
         sb.append('\n');
     }
 
     public String toString(Boolean finish, Map<String, String> imports, Set<String> packages) {
+        if (text == null) {
+            text = assemble(finish);
+        }
+        String xml = xmlize(text);
+        if (javaName(file) != null) {
+            return snippets.highlight(xml, imports, packages);
+        } else {
+            return xml;
+        }
+    }
+
+    /** Strips the common indentation, checks line lengths and pairs
+     * braces in a single pass over the appended lines.
+     */
+    private String assemble(Boolean finish) {
         final int len = snippets.getMaxLineLength();
-        if (remove != null) {
-            while (!remove.isEmpty()) {
-                Integer pos = remove.pop();
-                for (int i = 0; i < spaces; i++) {
-                    if (sb.charAt(pos) == '\n') {
-                        break;
-                    }
-                    sb.deleteCharAt(pos);
-                }
+        StringBuilder out = new StringBuilder(sb.length());
+        boolean tooLong = false;
+        int open = 0;
+        int close = 0;
+        int[] unclosed = new int[8];
+        int depth = 0;
+        for (int l = 0; l < lineCount; l++) {
+            int end = (l + 1 < lineCount ? lineStarts[l + 1] : sb.length()) - 1;
+            int start = lineStarts[l] + Math.min(spaces, end - lineStarts[l]);
+            if (end - start > len) {
+                tooLong = true;
             }
-            remove = null;
-            int line = 0;
-            for (int i = 0; i < sb.length(); i++) {
-                if (sb.charAt(i) == '\n') {
-                    line = 0;
-                    continue;
-                }
-                if (++line > len) {
-                    snippets.printError(null, "Line is too long in: " + file + "\n" + sb);
+            int indent = -1;
+            for (int i = start; i < end; i++) {
+                char ch = sb.charAt(i);
+                if (indent == -1 && ch != ' ') {
+                    indent = i - start;
                 }
-            }
-            int open = countChar(sb, '{');
-            int end = countChar(sb, '}');
-            if (Boolean.TRUE.equals(finish)) {
-                for (int i = 0; i < open - end; i++) {
-                    int missingBraceIndent = findMissingIndentation(sb.toString());
-                    while (missingBraceIndent-- > 0) {
-                        sb.append(" ");
+                if (ch == '{') {
+                    open++;
+                    if (depth == unclosed.length) {
+                        unclosed = Arrays.copyOf(unclosed, depth * 2);
+                    }
+                    unclosed[depth++] = indent;
+                } else if (ch == '}') {
+                    close++;
+                    if (depth > 0) {
+                        depth--;
                     }
-                    sb.append("}\n");
                 }
             }
-            if (finish != null && countChar(sb, '{') != countChar(sb, '}')) {
-                snippets.printError(null, "not paired amount of braces (consider using '// FINISH:' instead of '// END:') in " + file + "\n" + sb);
+            out.append(sb, start, end + 1);
+        }
+        if (tooLong) {
+            snippets.printError(null, "Line is too long in: " + file + "\n" + out);
+        }
+        if (Boolean.TRUE.equals(finish)) {
+            for (; close < open; close++) {
+                for (int i = unclosed[--depth]; i > 0; i--) {
+                    out.append(' ');
+                }
+                out.append("}\n");
             }
         }
-        String xml = xmlize(sb.toString());
-        if (javaName(file) != null) {
-            return boldJavaKeywords(xml, imports, packages);
-        } else {
-            return xml;
+        if (finish != null && open != close) {
+            snippets.printError(null, "not paired amount of braces (consider using '// FINISH:' instead of '// END:') in " + file + "\n" + out);
         }
+        return out.toString();
     }
 
     private static final Pattern WORDS = Pattern.compile("(\\w+)|(//.*)\n|(\"[^\"]*\")");
@@ -191,19 +219,7 @@ final class CodeSnippet implements CharSequence {
                         append = "<em>" + m.group(0) + "</em>";
                         break;
                     }
-                    String fqn;
-                    fqn = imports.get(m.group(0));
-                    if (fqn == null) {
-                        fqn = tryLoad("java.lang", m.group(0));
-                        if (fqn == null && packages != null) {
-                            for (String p : packages) {
-                                fqn = tryLoad(p, m.group(0));
-                                if (fqn != null) {
-                                    break;
-                                }
-                            }
-                        }
-                    }
+                    String fqn = resolveName(m.group(0), imports, packages);
                     if (fqn == null) {
                         append = m.group(0);
                     } else {
@@ -218,64 +234,42 @@ final class CodeSnippet implements CharSequence {
         return sb.toString();
     }
 
-    private static int findMissingIndentation(String unclosedText) {
-        int closed = 0;
-        int i = unclosedText.length() - 1;
-        while (i >= 0) {
-            char ch = unclosedText.charAt(i--);
-            if (ch == '}') {
-                closed++;
-            }
-            if (ch == '{') {
-                if (closed-- == 0) {
-                    break;
+    static String resolveName(String name, Map<String, String> imports, Set<String> packages) {
+        String fqn = imports.get(name);
+        if (fqn == null) {
+            fqn = ClassNames.find("java.lang", name);
+            if (fqn == null && packages != null) {
+                for (String p : packages) {
+                    fqn = ClassNames.find(p, name);
+                    if (fqn != null) {
+                        break;
+                    }
                 }
             }
         }
-        int spaces = 0;
-        while (i >= 0) {
-            char ch = unclosedText.charAt(i--);
-            if (ch == ' ') {
-                spaces++;
-                continue;
-            }
-            if (ch == '\n' || ch == '\r') {
-                break;
-            }
-            spaces = 0;
-        }
-        return spaces;
+        return fqn;
     }
 
-    private static String tryLoad(String pkg, String name) {
-        try {
-            String loaded = pkg + "." + name;
-            Class.forName(loaded);
-            return loaded;
-        } catch (ClassNotFoundException ex) {
-            return null;
-        }
-    }
-
-    private static final int countChar(CharSequence seq, char ch) {
-        int cnt = 0;
-        for (int i = 0; i < seq.length(); i++) {
-            if (ch == seq.charAt(i)) {
-                cnt++;
+    private static String xmlize(CharSequence text) {
+        StringBuilder sb = new StringBuilder(text.length() + text.length() / 16);
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            switch (ch) {
+                case '&': sb.append("&amp;"); break;
+                case '@': sb.append("&#064;"); break;
+                case '<': sb.append("&lt;"); break;
+                case '>': sb.append("&gt;"); break;
+                default: sb.append(ch);
             }
         }
-        return cnt;
+        return sb.toString();
     }
 
-    private static String xmlize(CharSequence text) {
-        String noAmp = text.toString().replaceAll("&", "&amp;");
-        String noZav = noAmp.toString().replaceAll("@", "&#064;");
-        String noLt = noZav.replaceAll("<", "&lt;");
-        String noGt = noLt.replaceAll(">", "&gt;");
-        return noGt;
+    static void collectClasses(Path dir, final Map<String, String> topClasses, Snippets snippets1) throws IOException {
+        collectClasses(dir, topClasses, snippets1, null);
     }
 
-    static void collectClasses(Path dir, final Map<String, String> topClasses, Snippets snippets1) throws IOException {
+    static void collectClasses(Path dir, final Map<String, String> topClasses, Snippets snippets1, SnippetCache cache) throws IOException {
         Files.walkFileTree(dir, new FileVisitor<Path>() {
             @Override
             public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
@@ -286,22 +280,9 @@ final class CodeSnippet implements CharSequence {
             public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
                 String javaName = CodeSnippet.javaName(file);
                 if (javaName != null) {
-                    try {
-                        try (final BufferedReader r = Files.newBufferedReader(file, Charset.defaultCharset())) {
-                            for (;;) {
-                                String line = r.readLine();
-                                if (line == null) {
-                                    break;
-                                }
-                                Matcher pkgMatch = snippets1.packageMatcher(line);
-                                if (pkgMatch.matches()) {
-                                    final String fqn = pkgMatch.group(1);
-                                    topClasses.put(javaName, fqn + '.' + javaName);
-                                }
-                            }
-                        }
-                    } catch (IOException ex) {
-                        snippets1.printError(null, "Cannot read " + file.toString() + " " + ex.getMessage());
+                    String pkg = packageOf(dir, file, attrs, snippets1, cache);
+                    if (pkg != null) {
+                        topClasses.put(javaName, pkg + '.' + javaName);
                     }
                 }
                 return FileVisitResult.CONTINUE;
@@ -319,7 +300,57 @@ final class CodeSnippet implements CharSequence {
         });
     }
 
+    static String packageOf(Path dir, Path file, BasicFileAttributes attrs, Snippets snippets1, SnippetCache cache) {
+        try {
+            String fullName = CodeSnippet.fullName(dir, file);
+            byte[][] content = { null };
+            SnippetCache.Entry cached = cache == null ? null : cache.find(fullName, file, attrs, content);
+            if (cached != null) {
+                return cached.pkg;
+            }
+            if (cache != null && content[0] == null) {
+                content[0] = Files.readAllBytes(file);
+            }
+            String pkg;
+            try (final BufferedReader r = newReader(file, content[0], Charset.defaultCharset())) {
+                pkg = findPackage(r, snippets1);
+            }
+            if (cache != null) {
+                cache.store(fullName, attrs, content[0], pkg, null);
+            }
+            return pkg;
+        } catch (IOException ex) {
+            snippets1.printError(null, "Cannot read " + file.toString() + " " + ex.getMessage());
+            return null;
+        }
+    }
+
+    private static String findPackage(BufferedReader r, Snippets snippets1) throws IOException {
+        String pkg = null;
+        for (;;) {
+            String line = r.readLine();
+            if (line == null) {
+                return pkg;
+            }
+            String name = snippets1.packageName(line);
+            if (name != null) {
+                pkg = name;
+            }
+        }
+    }
+
+    private static BufferedReader newReader(Path file, byte[] content, Charset charset) throws IOException {
+        if (content == null) {
+            return Files.newBufferedReader(file, charset);
+        }
+        return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(content), charset.newDecoder()));
+    }
+
     static void scanDir(Path dir, final Map<String, String> topClasses, final SnippetCollection collect, Snippets snip) throws IOException {
+        scanDir(dir, topClasses, collect, snip, null);
+    }
+
+    static void scanDir(Path dir, final Map<String, String> topClasses, final SnippetCollection collect, Snippets snip, SnippetCache cache) throws IOException {
         Files.walkFileTree(dir, new FileVisitor<Path>() {
             @Override
             public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
@@ -329,90 +360,9 @@ final class CodeSnippet implements CharSequence {
             @Override
             public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
                 String fullName = CodeSnippet.fullName(dir, file);
-                String javaName = CodeSnippet.javaName(file);
-                Map<String, CharSequence> texts = new LinkedHashMap<>();
-                Map<String, String> imports = new TreeMap<>(topClasses);
-                Set<String> packages = new LinkedHashSet<>();
-                Charset charset = snip.getEncoding();
-                try (final BufferedReader r = Files.newBufferedReader(file, charset)) {
-                    for (;;) {
-                        String line = r.readLine();
-                        if (line == null) {
-                            break;
-                        }
-                        if (javaName != null) {
-                            Matcher m = snip.importMatcher(line);
-                            if (m.matches()) {
-                                final String fqn = m.group(1);
-                                if (fqn.endsWith(".*")) {
-                                    packages.add(fqn.substring(0, fqn.length() - 2));
-                                } else {
-                                    int lastDot = fqn.lastIndexOf('.');
-                                    imports.put(fqn.substring(lastDot + 1), fqn);
-                                }
-                            }
-                        }
-                        {
-                            Matcher m = snip.startMatcher(line);
-                            if (m.matches()) {
-                                CodeSnippet sb = new CodeSnippet(file, snip);
-                                CharSequence prev = texts.put(sectionName(m.group(2)), sb);
-                                if (prev != null) {
-                                    snip.printError(null, "Same pattern is there twice: " + m.group(1) + " in " + file);
-                                }
-                                continue;
-                            }
-                        }
-                        {
-                            Matcher m = snip.endMatcher(line);
-                            if (m.matches()) {
-                                String sectionName = sectionName(m.group(2));
-                                if (sectionName.isEmpty()) {
-                                    // find last
-                                    Iterator<String> it = texts.keySet().iterator();
-                                    while (it.hasNext()) {
-                                        sectionName = it.next();
-                                    }
-                                }
-                                final CharSequence s = texts.get(sectionName);
-                                if (s instanceof CodeSnippet) {
-                                    Boolean finish;
-                                    if (m.group(1).startsWith("FINISH")) {
-                                        finish = true;
-                                    } else if (m.group(1).startsWith("END")) {
-                                        finish = false;
-                                    } else {
-                                        finish = null;
-                                    }
-                                    texts.put(sectionName, ((CodeSnippet) s).toString(finish, imports, packages));
-                                    continue;
-                                }
-                                if (s == null) {
-                                    snip.printError(null, "Closing unknown section: " + m.group(2) + " in " + file);
-                                    continue;
-                                }
-                                snip.printError(null, "Closing not opened section: " + m.group(2) + " in " + file);
-                                continue;
-                            }
-                        }
-                        for (CharSequence charSequence : texts.values()) {
-                            if (charSequence instanceof CodeSnippet) {
-                                CodeSnippet sb = (CodeSnippet) charSequence;
-                                sb.append(line);
-                            }
-                        }
-                    }
-                } catch (MalformedInputException ex) {
-                    snip.printNotice(null, "Skipping binary file " + file.toString());
-                } catch (IOException ex) {
-                    snip.printError(null, "Cannot read " + file.toString() + " " + ex.getMessage());
-                }
-                for (Map.Entry<String, CharSequence> entry : texts.entrySet()) {
-                    CharSequence v = entry.getValue();
-                    if (v instanceof CodeSnippet) {
-                        snip.printError(null, "Not closed section " + entry.getKey() + " in " + file);
-                    }
-                    collect.registerSnippet(fullName, entry.getKey(), v.toString());
+                Map<String, String> regions = regionsOf(dir, file, attrs, topClasses, snip, cache);
+                for (Map.Entry<String, String> entry : regions.entrySet()) {
+                    collect.registerSnippet(fullName, entry.getKey(), entry.getValue());
                 }
                 return FileVisitResult.CONTINUE;
             }
@@ -430,6 +380,131 @@ final class CodeSnippet implements CharSequence {
         });
     }
 
+    static Map<String, String> regionsOf(
+        Path dir, Path file, BasicFileAttributes attrs,
+        Map<String, String> topClasses, Snippets snip, SnippetCache cache
+    ) {
+        String fullName = CodeSnippet.fullName(dir, file);
+        byte[][] content = { null };
+        if (cache != null) {
+            try {
+                SnippetCache.Entry cached = cache.find(fullName, file, attrs, content);
+                if (cached != null && cached.regions != null) {
+                    return cached.regions;
+                }
+                if (content[0] == null) {
+                    content[0] = Files.readAllBytes(file);
+                }
+            } catch (IOException ex) {
+                snip.printError(null, "Cannot read " + file.toString() + " " + ex.getMessage());
+                return Collections.emptyMap();
+            }
+        }
+        final int errors = snip.getErrorCount();
+        String[] pkg = cache == null ? null : new String[1];
+        Map<String, String> regions = scanFile(file, content[0], topClasses, snip, pkg);
+        if (cache != null && errors == snip.getErrorCount()) {
+            cache.store(fullName, attrs, content[0], pkg[0], regions);
+        }
+        return regions;
+    }
+
+    private static Map<String, String> scanFile(
+        Path file, byte[] content, Map<String, String> topClasses, Snippets snip, String[] pkg
+    ) {
+        String javaName = CodeSnippet.javaName(file);
+        Map<String, CharSequence> texts = new LinkedHashMap<>();
+        Map<String, String> imports = new TreeMap<>(topClasses);
+        Set<String> packages = new LinkedHashSet<>();
+        Charset charset = snip.getEncoding();
+        try (final BufferedReader r = newReader(file, content, charset)) {
+            for (;;) {
+                String line = r.readLine();
+                if (line == null) {
+                    break;
+                }
+                if (javaName != null) {
+                    final String fqn = snip.importName(line);
+                    if (fqn != null) {
+                        if (fqn.endsWith(".*")) {
+                            packages.add(fqn.substring(0, fqn.length() - 2));
+                        } else {
+                            int lastDot = fqn.lastIndexOf('.');
+                            imports.put(fqn.substring(lastDot + 1), fqn);
+                        }
+                    } else if (pkg != null) {
+                        String name = snip.packageName(line);
+                        if (name != null) {
+                            pkg[0] = name;
+                        }
+                    }
+                }
+                {
+                    String[] m = snip.startMarker(line);
+                    if (m != null) {
+                        CodeSnippet sb = new CodeSnippet(file, snip);
+                        CharSequence prev = texts.put(sectionName(m[1]), sb);
+                        if (prev != null) {
+                            snip.printError(null, "Same pattern is there twice: " + m[0] + " in " + file);
+                        }
+                        continue;
+                    }
+                }
+                {
+                    String[] m = snip.endMarker(line);
+                    if (m != null) {
+                        String sectionName = sectionName(m[1]);
+                        if (sectionName.isEmpty()) {
+                            // find last
+                            Iterator<String> it = texts.keySet().iterator();
+                            while (it.hasNext()) {
+                                sectionName = it.next();
+                            }
+                        }
+                        final CharSequence s = texts.get(sectionName);
+                        if (s instanceof CodeSnippet) {
+                            Boolean finish;
+                            if (m[0].startsWith("FINISH")) {
+                                finish = true;
+                            } else if (m[0].startsWith("END")) {
+                                finish = false;
+                            } else {
+                                finish = null;
+                            }
+                            texts.put(sectionName, ((CodeSnippet) s).toString(finish, imports, packages));
+                            continue;
+                        }
+                        if (s == null) {
+                            snip.printError(null, "Closing unknown section: " + m[1] + " in " + file);
+                            continue;
+                        }
+                        snip.printError(null, "Closing not opened section: " + m[1] + " in " + file);
+                        continue;
+                    }
+                }
+                for (CharSequence charSequence : texts.values()) {
+                    if (charSequence instanceof CodeSnippet) {
+                        CodeSnippet sb = (CodeSnippet) charSequence;
+                        sb.append(line);
+                    }
+                }
+            }
+        } catch (MalformedInputException ex) {
+            snip.printNotice(null, "Skipping binary file " + file.toString());
+        } catch (IOException ex) {
+            snip.printError(null, "Cannot read " + file.toString() + " " + ex.getMessage());
+        }
+        Map<String, String> regions = new LinkedHashMap<>();
+        for (Map.Entry<String, CharSequence> entry : texts.entrySet()) {
+            CharSequence v = entry.getValue();
+            if (v instanceof CodeSnippet) {
+                snip.printError(null, "Not closed section " + entry.getKey() + " in " + file);
+            }
+            regions.put(entry.getKey(), v.toString());
+        }
+        return regions;
+    }
+
     static String sectionName(String group) {
         if (group.startsWith("region=\"")) {
             group = group.substring(8);
@@ -0,0 +1,97 @@
+/**
+ * Codesnippet Javadoc Doclet
+ * Copyright (C) 2015-2020 Jaroslav Tulach - jaroslav.tulach@apidesign.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.0 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://opensource.org/licenses/GPL-3.0.
+ */
+package org.apidesign.javadoc.codesnippet;
+
+import com.sun.javadoc.Doc;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/** Expands snippet tags of many comments in parallel. The comments are
+ * read and updated on the calling thread, only the expansion itself runs
+ * on a work stealing pool. Messages are reported in the order of the
+ * elements, as if they were processed one by one. Messages about files
+ * loaded on demand follow them, ordered by the path of the file.
+ */
+final class CommentExpander {
+    private final Snippets snip;
+    private final int threads;
+    private final List<Item> items = new ArrayList<>();
+
+    CommentExpander(Snippets snip, int threads) {
+        this.snip = snip;
+        this.threads = threads;
+    }
+
+    void add(Doc enclosingElement, Doc element) {
+        items.add(new Item(enclosingElement, element));
+    }
+
+    void expand() {
+        if (threads <= 1) {
+            for (Item item : items) {
+                snip.fixCodesnippets(item.enclosingElement, item.element);
+            }
+            items.clear();
+            return;
+        }
+        Item first = null;
+        for (Item item : items) {
+            item.text = item.element.getRawCommentText();
+            if (first == null && snip.mayContainTags(item.text)) {
+                first = item;
+            }
+        }
+        if (first != null) {
+            snip.getSnippet(first.element);
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                pool.invoke(new Batch<>(items, 0, items.size(), (item) -> {
+                    item.reports = snip.deferReports(() -> {
+                        item.expanded = snip.expandTags(item.element, item.text);
+                    });
+                }));
+            } finally {
+                pool.shutdown();
+            }
+        }
+        for (Item item : items) {
+            if (item.reports != null) {
+                for (Runnable r : item.reports) {
+                    r.run();
+                }
+            }
+            snip.updateComment(item.enclosingElement, item.element, item.text, item.expanded == null ? item.text : item.expanded);
+        }
+        snip.reportLoads();
+        items.clear();
+    }
+
+    private static final class Item {
+        final Doc enclosingElement;
+        final Doc element;
+        String text;
+        String expanded;
+        List<Runnable> reports;
+
+        Item(Doc enclosingElement, Doc element) {
+            this.enclosingElement = enclosingElement;
+            this.element = element;
+        }
+    }
+}
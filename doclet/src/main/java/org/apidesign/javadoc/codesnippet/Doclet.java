@@ -89,26 +89,28 @@ public final class Doclet implements jdk.javadoc.doclet.Doclet {
         HtmlDoclet.sharedInstanceForOptions.processSpecificOptions(root.options());
         HtmlDoclet.sharedInstanceForOptions.initDocLint(root);
 
+        CommentExpander expander = new CommentExpander(snippets, snippets.getThreads());
         for (ClassDoc clazz : root.classes()) {
-            snippets.fixCodesnippets(root, clazz);
+            expander.add(root, clazz);
             for (MethodDoc method : clazz.methods()) {
-                snippets.fixCodesnippets(clazz, method);
+                expander.add(clazz, method);
             }
             for (FieldDoc field : clazz.fields()) {
-                snippets.fixCodesnippets(clazz, field);
+                expander.add(clazz, field);
             }
             for (ConstructorDoc con : clazz.constructors()) {
-                snippets.fixCodesnippets(clazz, con);
+                expander.add(clazz, con);
             }
             if (clazz instanceof AnnotationTypeDoc) {
                 for (AnnotationTypeElementDoc element : ((AnnotationTypeDoc) clazz).elements()) {
-                    snippets.fixCodesnippets(clazz, element);
+                    expander.add(clazz, element);
                 }
             }
         }
         for (PackageDoc pkg : root.specifiedPackages()) {
-            snippets.fixCodesnippets(root, pkg);
+            expander.add(root, pkg);
         }
+        expander.expand();
 
 
         RootDoc rootProxy = hideElements(RootDoc.class, root);
@@ -122,11 +124,24 @@ public final class Doclet implements jdk.javadoc.doclet.Doclet {
         SNIPPET_PATH(2, "--snippet-path"),
         SNIPPETMODE(2, "-snippetmode"),
         SNIPPETCLASSES(2, "-snippetclasses"),
+        SNIPPETCACHE(2, "-snippetcache"),
+        SNIPPETTHREADS(2, "-snippetthreads"),
+        SNIPPETLAZY(1, "-snippetlazy"),
+        SNIPPETPARSER(2, "-snippetparser"),
+        SNIPPETHIGHLIGHTER(2, "-snippethighlighter"),
         MAXLINELENGTH(2, "-maxLineLength"),
         HIDINGANNOTATION(2, "-hiddingannotation"),
         VERIFYSINCE(1, "-verifysince"),
         VERIFYSINCEPRESENT(1, "-verifysincepresent"),
         ENCODING(2, "-encoding"),
+        WRITETHREADS(2, "-writethreads"),
+        PHASETIMES(1, "-phasetimes"),
+        STREAMPAGES(1, "-streampages"),
+        INCREMENTAL(1, "-incremental"),
+        KEEPUNCHANGED(1, "-keepunchanged"),
+        LINKCACHE(2, "-linkcache"),
+        LINKCACHETTL(2, "-linkcachettl"),
+        LINKCACHEOFFLINE(1, "-linkcacheoffline"),
         SUPPRESSMISSINGLINKWARNINGS(1, "-suppressmissinglinkwarnings");
 
         final int length;
@@ -237,6 +252,21 @@ public final class Doclet implements jdk.javadoc.doclet.Doclet {
         if (SnippetOption.SNIPPETMODE.matches(option)) {
             return 2;
         }
+        if (SnippetOption.SNIPPETCACHE.matches(option)) {
+            return 2;
+        }
+        if (SnippetOption.SNIPPETTHREADS.matches(option)) {
+            return 2;
+        }
+        if (SnippetOption.SNIPPETLAZY.matches(option)) {
+            return 1;
+        }
+        if (SnippetOption.SNIPPETPARSER.matches(option)) {
+            return 2;
+        }
+        if (SnippetOption.SNIPPETHIGHLIGHTER.matches(option)) {
+            return 2;
+        }
         if (SnippetOption.MAXLINELENGTH.matches(option)) {
             return 2;
         }
@@ -299,6 +329,27 @@ public final class Doclet implements jdk.javadoc.doclet.Doclet {
                         return false;
                 }
             }
+            if (SnippetOption.SNIPPETCACHE.matches(optionAndParams[0])) {
+                snippets.setCacheDir(new File(optionAndParams[1]).getAbsoluteFile().toPath());
+            }
+            if (SnippetOption.SNIPPETPARSER.matches(optionAndParams[0])) {
+                if (!snippets.setParser(optionAndParams[1])) {
+                    reporter.printError("Unknown value " + optionAndParams[1] + " for " + SnippetOption.SNIPPETPARSER.name + " supported values: tokenizer, regex");
+                    return false;
+                }
+            }
+            if (SnippetOption.SNIPPETHIGHLIGHTER.matches(optionAndParams[0])) {
+                if (!snippets.setHighlighter(optionAndParams[1])) {
+                    reporter.printError("Unknown value " + optionAndParams[1] + " for " + SnippetOption.SNIPPETHIGHLIGHTER.name + " supported values: lexer, regex");
+                    return false;
+                }
+            }
+            if (SnippetOption.SNIPPETLAZY.matches(optionAndParams[0])) {
+                snippets.setLazy(true);
+            }
+            if (SnippetOption.SNIPPETTHREADS.matches(optionAndParams[0])) {
+                snippets.setThreads(optionAndParams[1]);
+            }
             if (SnippetOption.MAXLINELENGTH.matches(optionAndParams[0])) {
                 if ( optionAndParams.length > 1 ) {
                     snippets.setMaxLineLength( optionAndParams[1] );
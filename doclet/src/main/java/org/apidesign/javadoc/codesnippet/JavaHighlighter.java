@@ -0,0 +1,224 @@
+/**
+ * Codesnippet Javadoc Doclet
+ * Copyright (C) 2015-2020 Jaroslav Tulach - jaroslav.tulach@apidesign.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.0 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://opensource.org/licenses/GPL-3.0.
+ */
+package org.apidesign.javadoc.codesnippet;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/** Highlights Java source by a single pass of a lexer. The text is
+ * expected to be already escaped for HTML, so {@code <}, {@code >},
+ * {@code &} and {@code @} appear as entities. Keywords are emitted in
+ * {@code <b>}, comments and literals in {@code <em>} and resolvable type
+ * names as {@code {@link}} tags.
+ */
+final class JavaHighlighter {
+    private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList(
+        "abstract", "assert", "boolean", "break", "byte", "case", "catch",
+        "char", "class", "const", "continue", "default", "do", "double",
+        "else", "enum", "extends", "final", "finally", "float", "for",
+        "goto", "if", "implements", "import", "instanceof", "int",
+        "interface", "long", "native", "new", "package", "private",
+        "protected", "public", "return", "short", "static", "strictfp",
+        "super", "switch", "synchronized", "this", "throw", "throws",
+        "transient", "try", "void", "volatile", "while",
+        "true", "false", "null"
+    ));
+
+    private JavaHighlighter() {
+    }
+
+    static String highlight(String text, Map<String, String> imports, Set<String> packages) {
+        StringBuilder out = new StringBuilder(text.length() + text.length() / 4);
+        highlight(text, imports, packages, out);
+        return out.toString();
+    }
+
+    static void highlight(CharSequence text, Map<String, String> imports, Set<String> packages, StringBuilder out) {
+        final int len = text.length();
+        int i = 0;
+        while (i < len) {
+            char ch = text.charAt(i);
+            int end;
+            if (ch == '/' && i + 1 < len && text.charAt(i + 1) == '/') {
+                end = i + 2;
+                while (end < len && !isNewLine(text.charAt(end))) {
+                    end++;
+                }
+                emphasize(out, text, i, end);
+            } else if (ch == '/' && i + 1 < len && text.charAt(i + 1) == '*') {
+                end = i + 2;
+                while (end < len && !(text.charAt(end) == '*' && end + 1 < len && text.charAt(end + 1) == '/')) {
+                    end++;
+                }
+                end = Math.min(end + 2, len);
+                emphasize(out, text, i, end);
+            } else if (ch == '"' && startsWith(text, i, "\"\"\"")) {
+                end = textBlockEnd(text, i + 3);
+                emphasize(out, text, i, end);
+            } else if (ch == '"' || ch == '\'') {
+                end = literalEnd(text, i + 1, ch);
+                emphasize(out, text, i, end);
+            } else if (ch == '&') {
+                end = entityEnd(text, i);
+                out.append(text, i, end);
+            } else if (Character.isJavaIdentifierStart(ch)) {
+                end = i + 1;
+                while (end < len && Character.isJavaIdentifierPart(text.charAt(end))) {
+                    end++;
+                }
+                end = word(out, text, i, end, imports, packages);
+            } else if (ch >= '0' && ch <= '9') {
+                end = i + 1;
+                while (end < len && Character.isJavaIdentifierPart(text.charAt(end))) {
+                    end++;
+                }
+                out.append(text, i, end);
+            } else {
+                end = i + 1;
+                out.append(ch);
+            }
+            i = end;
+        }
+    }
+
+    private static int word(
+        StringBuilder out, CharSequence text, int start, int end,
+        Map<String, String> imports, Set<String> packages
+    ) {
+        String word = text.subSequence(start, end).toString();
+        if (KEYWORDS.contains(word)) {
+            out.append("<b>").append(word).append("</b>");
+            return end;
+        }
+        int next = skipWhitespace(text, end);
+        if (isContextualKeyword(word, text, next)) {
+            out.append("<b>").append(word).append("</b>");
+            return end;
+        }
+        if (word.equals("non") && startsWith(text, end, "-sealed")) {
+            int sealedEnd = end + 7;
+            if ((sealedEnd == text.length() || !Character.isJavaIdentifierPart(text.charAt(sealedEnd)))
+                && isContextualKeyword("sealed", text, skipWhitespace(text, sealedEnd))) {
+                out.append("<b>non-sealed</b>");
+                return sealedEnd;
+            }
+        }
+        String fqn = CodeSnippet.resolveName(word, imports, packages);
+        if (fqn == null) {
+            out.append(word);
+        } else {
+            out.append("{@link ").append(fqn).append('}');
+        }
+        return end;
+    }
+
+    /** Restricted identifiers act as keywords only when followed by
+     * the construct they introduce. Otherwise they are ordinary names.
+     */
+    private static boolean isContextualKeyword(String word, CharSequence text, int next) {
+        char after = next < text.length() ? text.charAt(next) : 0;
+        switch (word) {
+            case "var":
+            case "record":
+            case "sealed":
+            case "permits":
+                return Character.isJavaIdentifierStart(after);
+            case "when":
+                return Character.isJavaIdentifierStart(after) || after == '(' || after == '!';
+            case "yield":
+                return Character.isJavaIdentifierPart(after) || after == '"' || after == '\'' || after == '-';
+            default:
+                return false;
+        }
+    }
+
+    private static void emphasize(StringBuilder out, CharSequence text, int start, int end) {
+        out.append("<em>").append(text, start, end).append("</em>");
+    }
+
+    private static int literalEnd(CharSequence text, int at, char quote) {
+        while (at < text.length()) {
+            char ch = text.charAt(at);
+            if (ch == '\\') {
+                at += 2;
+                continue;
+            }
+            if (isNewLine(ch)) {
+                return at;
+            }
+            at++;
+            if (ch == quote) {
+                return at;
+            }
+        }
+        return text.length();
+    }
+
+    private static int textBlockEnd(CharSequence text, int at) {
+        while (at < text.length()) {
+            char ch = text.charAt(at);
+            if (ch == '\\') {
+                at += 2;
+                continue;
+            }
+            if (startsWith(text, at, "\"\"\"")) {
+                return at + 3;
+            }
+            at++;
+        }
+        return text.length();
+    }
+
+    private static int entityEnd(CharSequence text, int at) {
+        for (int i = at + 1; i < text.length() && i < at + 10; i++) {
+            char ch = text.charAt(i);
+            if (ch == ';') {
+                return i + 1;
+            }
+            if (ch != '#' && !Character.isLetterOrDigit(ch)) {
+                break;
+            }
+        }
+        return at + 1;
+    }
+
+    private static int skipWhitespace(CharSequence text, int at) {
+        while (at < text.length() && Character.isWhitespace(text.charAt(at))) {
+            at++;
+        }
+        return at;
+    }
+
+    private static boolean startsWith(CharSequence text, int at, String prefix) {
+        if (at + prefix.length() > text.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (text.charAt(at + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isNewLine(char ch) {
+        return ch == '\n' || ch == '\r';
+    }
+}
@@ -0,0 +1,182 @@
+/**
+ * Codesnippet Javadoc Doclet
+ * Copyright (C) 2015-2020 Jaroslav Tulach - jaroslav.tulach@apidesign.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.0 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://opensource.org/licenses/GPL-3.0.
+ */
+package org.apidesign.javadoc.codesnippet;
+
+/** Recognizes the same lines as the regular expressions in {@link Snippets},
+ * but without backtracking. Lines that contain neither {@code :} nor
+ * {@code @} cannot hold any marker and are rejected by a single scan.
+ * Markers are returned as an array of two elements with the same content
+ * as the first and second group of the regular expressions.
+ */
+final class MarkerTokenizer {
+
+    private MarkerTokenizer() {
+    }
+
+    static String packageName(String line) {
+        return statement(line, "package", false);
+    }
+
+    static String importName(String line) {
+        return statement(line, "import", true);
+    }
+
+    static String[] startMarker(String line, boolean legacy, boolean jep413) {
+        if (!mayContainMarker(line)) {
+            return null;
+        }
+        if (legacy) {
+            for (int at = line.lastIndexOf(" BEGIN:"); at >= 0; at = line.lastIndexOf(" BEGIN:", at - 1)) {
+                int name = skipSpaces(line, at + 7);
+                String[] found = marker(line, at, line.substring(at + 1, name), name, true, true);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        if (jep413) {
+            for (int at = line.lastIndexOf(" @start"); at >= 0; at = line.lastIndexOf(" @start", at - 1)) {
+                int region = skipSpaces(line, at + 7);
+                if (!line.startsWith("region=\"", region)) {
+                    continue;
+                }
+                int name = region + 8;
+                String[] found = marker(line, at, line.substring(at + 1, name), name, true, false);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+
+    static String[] endMarker(String line, boolean legacy, boolean jep413) {
+        if (!mayContainMarker(line)) {
+            return null;
+        }
+        if (legacy) {
+            int end = line.lastIndexOf(" END:");
+            int finish = line.lastIndexOf(" FINISH:");
+            while (end >= 0 || finish >= 0) {
+                String[] found;
+                if (end > finish) {
+                    found = marker(line, end, "END", skipSpaces(line, end + 5), true, true);
+                    end = line.lastIndexOf(" END:", end - 1);
+                } else {
+                    found = marker(line, finish, "FINISH", skipSpaces(line, finish + 8), true, true);
+                    finish = line.lastIndexOf(" FINISH:", finish - 1);
+                }
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        if (jep413) {
+            for (int at = line.lastIndexOf(" @end"); at >= 0; at = line.lastIndexOf(" @end", at - 1)) {
+                int name = skipSpaces(line, at + 5);
+                String[] found = marker(line, at, line.substring(at + 1, name), name, false, false);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean mayContainMarker(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (ch == ':' || ch == '@') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String[] marker(String line, int at, String kind, int name, boolean nameRequired, boolean legacy) {
+        for (int i = 0; i < at; i++) {
+            if (isLineTerminator(line.charAt(i))) {
+                return null;
+            }
+        }
+        int end = name;
+        while (end < line.length() && isGraph(line.charAt(end))) {
+            end++;
+        }
+        if (nameRequired && end == name) {
+            return null;
+        }
+        for (int i = end; i < line.length(); i++) {
+            if (!isTail(line.charAt(i), legacy)) {
+                return null;
+            }
+        }
+        return new String[] { kind, line.substring(name, end) };
+    }
+
+    private static String statement(String line, String keyword, boolean star) {
+        int at = skipSpaces(line, 0);
+        if (!line.startsWith(keyword, at)) {
+            return null;
+        }
+        int name = skipSpaces(line, at + keyword.length());
+        int end = name;
+        while (end < line.length()) {
+            char ch = line.charAt(end);
+            if (isAlnum(ch) || ch == '.' || (star && ch == '*')) {
+                end++;
+            } else {
+                break;
+            }
+        }
+        if (end == name || end != line.length() - 1 || line.charAt(end) != ';') {
+            return null;
+        }
+        return line.substring(name, end);
+    }
+
+    private static int skipSpaces(String line, int at) {
+        while (at < line.length() && line.charAt(at) == ' ') {
+            at++;
+        }
+        return at;
+    }
+
+    private static boolean isGraph(char ch) {
+        return ch >= '!' && ch <= '~';
+    }
+
+    /** Characters allowed after the name of a marker. The {@code ["-\\> ]}
+     * class of the regular expressions is a range from {@code "} to
+     * {@code >} and a space.
+     */
+    private static boolean isTail(char ch, boolean legacy) {
+        if (legacy) {
+            return ch == '-' || ch == '>' || ch == ' ';
+        }
+        return (ch >= '"' && ch <= '>') || ch == ' ';
+    }
+
+    private static boolean isAlnum(char ch) {
+        return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9');
+    }
+
+    private static boolean isLineTerminator(char ch) {
+        return ch == '\n' || ch == '\r' || ch == '\u0085' || ch == '\u2028' || ch == '\u2029';
+    }
+}
@@ -0,0 +1,250 @@
+/**
+ * Codesnippet Javadoc Doclet
+ * Copyright (C) 2015-2020 Jaroslav Tulach - jaroslav.tulach@apidesign.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.0 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://opensource.org/licenses/GPL-3.0.
+ */
+package org.apidesign.javadoc.codesnippet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Persistent index of snippets extracted from a single source root.
+ * Each file is remembered with its size, modification time and content
+ * hash. When they match, the package name and regions are served from
+ * the index instead of reading and highlighting the file again.
+ * Files may be looked up and stored from multiple threads.
+ */
+final class SnippetCache {
+    private static final int MAGIC = 0x534e4950;
+    private static final int VERSION = 1;
+
+    private final Path index;
+    private final Map<String, Entry> previous;
+    private final Map<String, Entry> current = new ConcurrentHashMap<>();
+    private final String previousFingerprint;
+    private String fingerprint;
+    private volatile boolean modified;
+
+    private SnippetCache(Path index, String previousFingerprint, Map<String, Entry> previous) {
+        this.index = index;
+        this.previousFingerprint = previousFingerprint;
+        this.previous = previous;
+    }
+
+    static SnippetCache load(Path cacheDir, Path root, Snippets snip) {
+        Path index = cacheDir.resolve(hash(root.toUri().toString().getBytes(StandardCharsets.UTF_8)) + ".idx");
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        String fp = null;
+        try (DataInputStream is = new DataInputStream(new BufferedInputStream(Files.newInputStream(index)))) {
+            if (is.readInt() == MAGIC && is.readInt() == VERSION) {
+                fp = readString(is);
+                int cnt = is.readInt();
+                for (int i = 0; i < cnt; i++) {
+                    String name = readString(is);
+                    entries.put(name, Entry.read(is));
+                }
+            }
+        } catch (NoSuchFileException ex) {
+            // first run, nothing cached yet
+        } catch (IOException ex) {
+            snip.printNotice(null, "Ignoring snippet cache " + index + ": " + ex.getMessage());
+            entries.clear();
+            fp = null;
+        }
+        return new SnippetCache(index, fp, entries);
+    }
+
+    /** Fingerprint of the settings and known classes the regions are
+     * highlighted with. Regions cached with a different fingerprint are
+     * dropped and the files get scanned again.
+     */
+    void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+        if (!fingerprint.equals(previousFingerprint)) {
+            dropRegions(previous);
+            dropRegions(current);
+        }
+    }
+
+    private static void dropRegions(Map<String, Entry> entries) {
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            entry.setValue(entry.getValue().withRegions(null));
+        }
+    }
+
+    /** Finds up to date entry for given file.
+     *
+     * @param name name of the file relative to the root
+     * @param file the file
+     * @param attrs its attributes
+     * @param content if the file had to be read to compare the hash,
+     *   its bytes are stored here
+     * @return the entry or {@code null} if the file has changed
+     */
+    Entry find(String name, Path file, BasicFileAttributes attrs, byte[][] content) throws IOException {
+        Entry e = current.get(name);
+        if (e == null) {
+            e = previous.get(name);
+        }
+        if (e == null || e.size != attrs.size()) {
+            return null;
+        }
+        final long time = attrs.lastModifiedTime().toMillis();
+        if (e.modified != time) {
+            content[0] = Files.readAllBytes(file);
+            if (!e.hash.equals(hash(content[0]))) {
+                return null;
+            }
+            e = new Entry(e.size, time, e.hash, e.pkg, e.regions);
+            modified = true;
+        }
+        current.put(name, e);
+        return e;
+    }
+
+    void store(String name, BasicFileAttributes attrs, byte[] content, String pkg, Map<String, String> regions) {
+        Entry e = new Entry(attrs.size(), attrs.lastModifiedTime().toMillis(), hash(content), pkg, regions);
+        current.put(name, e);
+        modified = true;
+    }
+
+    void save() throws IOException {
+        if (!modified && current.keySet().equals(previous.keySet()) && fingerprint != null && fingerprint.equals(previousFingerprint)) {
+            return;
+        }
+        Files.createDirectories(index.getParent());
+        Path tmp = index.resolveSibling(index.getFileName() + ".tmp");
+        try (DataOutputStream os = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            os.writeInt(MAGIC);
+            os.writeInt(VERSION);
+            writeString(os, fingerprint == null ? "" : fingerprint);
+            Map<String, Entry> sorted = new TreeMap<>(current);
+            os.writeInt(sorted.size());
+            for (Map.Entry<String, Entry> entry : sorted.entrySet()) {
+                writeString(os, entry.getKey());
+                entry.getValue().write(os);
+            }
+        }
+        try {
+            Files.move(tmp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tmp, index, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static String hash(byte[] data) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-1");
+            byte[] digest = md.digest(data);
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+                sb.append(Character.forDigit(b & 0xf, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void writeString(DataOutputStream os, String s) throws IOException {
+        if (s == null) {
+            os.writeInt(-1);
+            return;
+        }
+        byte[] arr = s.getBytes(StandardCharsets.UTF_8);
+        os.writeInt(arr.length);
+        os.write(arr);
+    }
+
+    private static String readString(DataInputStream is) throws IOException {
+        int len = is.readInt();
+        if (len == -1) {
+            return null;
+        }
+        byte[] arr = new byte[len];
+        is.readFully(arr);
+        return new String(arr, StandardCharsets.UTF_8);
+    }
+
+    static final class Entry {
+        final long size;
+        final long modified;
+        final String hash;
+        final String pkg;
+        final Map<String, String> regions;
+
+        Entry(long size, long modified, String hash, String pkg, Map<String, String> regions) {
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+            this.pkg = pkg;
+            this.regions = regions;
+        }
+
+        Entry withRegions(Map<String, String> newRegions) {
+            return new Entry(size, modified, hash, pkg, newRegions);
+        }
+
+        void write(DataOutputStream os) throws IOException {
+            os.writeLong(size);
+            os.writeLong(modified);
+            writeString(os, hash);
+            writeString(os, pkg);
+            if (regions == null) {
+                os.writeInt(-1);
+            } else {
+                os.writeInt(regions.size());
+                for (Map.Entry<String, String> entry : regions.entrySet()) {
+                    writeString(os, entry.getKey());
+                    writeString(os, entry.getValue());
+                }
+            }
+        }
+
+        static Entry read(DataInputStream is) throws IOException {
+            long size = is.readLong();
+            long modified = is.readLong();
+            String hash = readString(is);
+            String pkg = readString(is);
+            int cnt = is.readInt();
+            Map<String, String> regions = null;
+            if (cnt >= 0) {
+                regions = new LinkedHashMap<>();
+                for (int i = 0; i < cnt; i++) {
+                    String key = readString(is);
+                    regions.put(key, readString(is));
+                }
+            }
+            return new Entry(size, modified, hash, pkg, regions);
+        }
+    }
+}
@@ -20,33 +20,61 @@ package org.apidesign.javadoc.codesnippet;
 import com.sun.javadoc.Doc;
 import com.sun.javadoc.DocErrorReporter;
 import java.io.File;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 final class SnippetCollection {
     private final DocErrorReporter reporter;
     private final Map<String, String> snippets;
     private final Map<String, Map<String, String>> perFileSnippets;
+    private final BiConsumer<String, SnippetCollection> fileLoader;
+    private final Consumer<SnippetCollection> allLoader;
+    private final Set<String> loadedFiles;
+    private volatile boolean loadedAll;
 
     SnippetCollection(DocErrorReporter reporter) {
+        this(reporter, null, null);
+    }
+
+    /** Creates collection that loads its snippets on demand.
+     *
+     * @param reporter where to report problems
+     * @param fileLoader called to register snippets of a single file
+     *   when it is first referenced by {@link #findSnippet}
+     * @param allLoader called to register all the snippets when
+     *   {@link #findGlobalSnippet} cannot find a snippet
+     */
+    SnippetCollection(
+        DocErrorReporter reporter,
+        BiConsumer<String, SnippetCollection> fileLoader,
+        Consumer<SnippetCollection> allLoader
+    ) {
         this.reporter = reporter;
-        this.snippets = new HashMap<>();
-        this.perFileSnippets = new HashMap<>();
+        this.snippets = new ConcurrentHashMap<>();
+        this.perFileSnippets = new ConcurrentHashMap<>();
+        this.fileLoader = fileLoader;
+        this.allLoader = allLoader;
+        this.loadedFiles = new HashSet<>();
+        this.loadedAll = allLoader == null;
     }
 
     final void registerSnippet(String file, String key, String code) {
         this.snippets.put(key, code);
         file = file.replace(File.separatorChar, '/'); // normalize the path separator
-        Map<String, String> local = this.perFileSnippets.get(file);
-        if (local == null) {
-            local = new HashMap<>();
-            this.perFileSnippets.put(file, local);
-        }
+        Map<String, String> local = this.perFileSnippets.computeIfAbsent(file, (__) -> new ConcurrentHashMap<>());
         local.put(key, code);
     }
 
     final String findGlobalSnippet(Doc element, String key) {
         String code = snippets.get(key);
+        if (code == null && !loadedAll) {
+            loadAll();
+            code = snippets.get(key);
+        }
         if (code == null) {
             reporter.printWarning(element.position(), code = "Snippet '" + key + "' not found.");
         }
@@ -54,7 +82,10 @@ final class SnippetCollection {
     }
 
     final String findSnippet(Doc element, String file, String key) {
-        Map<String, String> snip = perFileSnippets.get(file);
+        if (file != null && fileLoader != null) {
+            loadFile(file);
+        }
+        Map<String, String> snip = file == null ? null : perFileSnippets.get(file);
         String code = snip == null ? null : snip.get(key);
         if (code == null) {
             reporter.printWarning(element.position(), code = "Snippet '" + key + "' in file '" + file + "' not found.");
@@ -64,4 +95,17 @@ final class SnippetCollection {
         }
         return code;
     }
+
+    private synchronized void loadFile(String file) {
+        if (!loadedAll && loadedFiles.add(file)) {
+            fileLoader.accept(file, this);
+        }
+    }
+
+    private synchronized void loadAll() {
+        if (!loadedAll) {
+            allLoader.accept(this);
+            loadedAll = true;
+        }
+    }
 }
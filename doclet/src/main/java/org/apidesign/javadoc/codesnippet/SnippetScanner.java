@@ -0,0 +1,161 @@
+/**
+ * Codesnippet Javadoc Doclet
+ * Copyright (C) 2015-2020 Jaroslav Tulach - jaroslav.tulach@apidesign.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.0 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://opensource.org/licenses/GPL-3.0.
+ */
+package org.apidesign.javadoc.codesnippet;
+
+import com.sun.javadoc.Doc;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/** Scans the snippet roots in parallel. Each root is walked just once,
+ * the files are then processed on a work stealing pool. Results and
+ * reported messages are merged in the order of the walk, so the outcome
+ * is the same as when scanning with a single thread.
+ */
+final class SnippetScanner {
+    private final Snippets snip;
+    private final int threads;
+
+    SnippetScanner(Snippets snip, int threads) {
+        this.snip = snip;
+        this.threads = threads;
+    }
+
+    void scan(
+        Doc element, List<Path> visible, List<Path> search,
+        Map<String, String> topClasses, Map<Path, SnippetCache> caches,
+        SnippetCollection collect
+    ) {
+        Map<Path, List<Item>> roots = new LinkedHashMap<>();
+        Set<Path> all = new LinkedHashSet<>(search);
+        all.addAll(visible);
+        for (Path path : all) {
+            if (!Files.isDirectory(path)) {
+                snip.printWarning(null, "Cannot scan " + path + " not a directory!");
+                continue;
+            }
+            try {
+                roots.put(path, walk(path));
+            } catch (IOException ex) {
+                snip.printError(element, "Cannot read " + path + ": " + ex.getMessage());
+            }
+        }
+
+        List<Item> javaFiles = new ArrayList<>();
+        for (Path path : new LinkedHashSet<>(visible)) {
+            List<Item> items = roots.get(path);
+            if (items != null) {
+                for (Item item : items) {
+                    if (CodeSnippet.javaName(item.file) != null) {
+                        javaFiles.add(item);
+                    }
+                }
+            }
+        }
+        List<Item> files = new ArrayList<>();
+        for (Path path : new LinkedHashSet<>(search)) {
+            List<Item> items = roots.get(path);
+            if (items != null) {
+                files.addAll(items);
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new Batch<>(javaFiles, 0, javaFiles.size(), (item) -> {
+                item.reports = snip.deferReports(() -> {
+                    item.pkg = CodeSnippet.packageOf(item.root, item.file, item.attrs, snip, caches.get(item.root));
+                });
+            }));
+            for (Item item : javaFiles) {
+                replay(item);
+                if (item.pkg != null) {
+                    String javaName = CodeSnippet.javaName(item.file);
+                    topClasses.put(javaName, item.pkg + '.' + javaName);
+                }
+            }
+            snip.prepareCaches(caches, topClasses);
+
+            pool.invoke(new Batch<>(files, 0, files.size(), (item) -> {
+                item.reports = snip.deferReports(() -> {
+                    item.regions = CodeSnippet.regionsOf(item.root, item.file, item.attrs, topClasses, snip, caches.get(item.root));
+                });
+            }));
+            for (Item item : files) {
+                replay(item);
+                String fullName = CodeSnippet.fullName(item.root, item.file);
+                for (Map.Entry<String, String> entry : item.regions.entrySet()) {
+                    collect.registerSnippet(fullName, entry.getKey(), entry.getValue());
+                }
+                item.regions = null;
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void replay(Item item) {
+        List<Runnable> reports = item.reports;
+        item.reports = null;
+        for (Runnable r : reports) {
+            r.run();
+        }
+    }
+
+    private static List<Item> walk(final Path root) throws IOException {
+        final List<Item> items = new ArrayList<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                items.add(new Item(root, file, attrs));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+                return FileVisitResult.TERMINATE;
+            }
+        });
+        return items;
+    }
+
+    private static final class Item {
+        final Path root;
+        final Path file;
+        final BasicFileAttributes attrs;
+        List<Runnable> reports;
+        String pkg;
+        Map<String, String> regions;
+
+        Item(Path root, Path file, BasicFileAttributes attrs) {
+            this.root = root;
+            this.file = file;
+            this.attrs = attrs;
+        }
+    }
+}
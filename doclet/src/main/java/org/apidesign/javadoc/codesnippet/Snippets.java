@@ -19,18 +19,24 @@ package org.apidesign.javadoc.codesnippet;
 
 import com.sun.javadoc.Doc;
 import com.sun.javadoc.DocErrorReporter;
+import com.sun.javadoc.SourcePosition;
 import com.sun.javadoc.Tag;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -63,32 +69,32 @@ final class Snippets {
     private Set<String> hiddenAnno;
     private boolean modeJep413 = true;
     private boolean modeLegacy = true;
+    private Path cacheDir;
+    private int errorCount;
+    private int threads = 1;
+    private boolean lazy;
+    private boolean regexParser;
+    private boolean regexHighlighter;
+    private final ThreadLocal<Deferred> deferred = new ThreadLocal<>();
+    private final Map<String, List<Runnable>> loadReports = new TreeMap<>();
 
     Snippets(DocErrorReporter reporter) {
         this.reporter = reporter;
     }
 
     void fixCodesnippets(Doc enclosingElement, Doc element) {
+        final String txt = element.getRawCommentText();
+        updateComment(enclosingElement, element, txt, expandTags(element, txt));
+    }
+
+    /** Sets the expanded text of a comment and verifies its {@code @since} tag.
+     *
+     * @param txt the original raw comment text
+     * @param newTxt the expanded text or {@code txt} if there was nothing to expand
+     */
+    void updateComment(Doc enclosingElement, Doc element, String txt, String newTxt) {
         try {
-            for (;;) {
-                final String txt = element.getRawCommentText();
-                final String[] code = { null };
-                final int[] end = { -1 };
-                Matcher match = null;
-                if (modeJep413) {
-                    match = matchSnippet(this::getSnippet, element, txt, code, end);
-                }
-                if (match == null) {
-                    if (modeLegacy) {
-                        match = matchLegacyCodeSnippet(this::getSnippet, element, txt, code, end);
-                    }
-                    if (match == null) {
-                        break;
-                    }
-                }
-                String newTxt = txt.substring(0, match.start(0)) +
-                    code[0] +
-                    txt.substring(end[0]);
+            if (newTxt != txt) {
                 element.setRawCommentText(newTxt);
             }
             element.inlineTags();
@@ -100,70 +106,134 @@ final class Snippets {
         }
     }
 
+    /** Replaces all {@code {@snippet}}, {@code {@codesnippet}} and
+     * {@code {@link}} to example classes in a single pass over the comment.
+     * Text produced by the expansion is not searched for further tags.
+     *
+     * @return the same instance if there was nothing to expand
+     */
+    String expandTags(Doc element, String txt) {
+        final Matcher snippet = modeJep413 ? SNIPPET.matcher(txt) : null;
+        final Matcher tag = modeLegacy ? TAG.matcher(txt) : null;
+        final Matcher link = modeLegacy && !classes.isEmpty() ? LINKTAG.matcher(txt) : null;
+        final String[] code = { null };
+        final int[] end = { -1 };
+        int nextSnippet = next(snippet, 0);
+        int nextTag = next(tag, 0);
+        int nextLink = nextLinkSnippet(link, 0);
+        StringBuilder sb = null;
+        int copied = 0;
+        for (;;) {
+            final int start = Math.min(nextSnippet, Math.min(nextTag, nextLink));
+            if (start == Integer.MAX_VALUE) {
+                break;
+            }
+            if (start == nextSnippet) {
+                expandSnippet(this::getSnippet, this::highlightInline, element, txt, snippet, code, end);
+            } else {
+                expandLegacyCodeSnippet(this::getSnippet, element, start == nextTag ? tag : link, code, end);
+            }
+            if (sb == null) {
+                sb = new StringBuilder(txt.length() + 4096);
+            }
+            sb.append(txt, copied, start).append(code[0]);
+            copied = end[0];
+            if (nextSnippet < copied) {
+                nextSnippet = next(snippet, copied);
+            }
+            if (nextTag < copied) {
+                nextTag = next(tag, copied);
+            }
+            if (nextLink < copied) {
+                nextLink = nextLinkSnippet(link, copied);
+            }
+        }
+        if (sb == null) {
+            return txt;
+        }
+        sb.append(txt, copied, txt.length());
+        return sb.toString();
+    }
+
+    /** Quick check whether {@link #expandTags} may find anything to expand.
+     */
+    boolean mayContainTags(String txt) {
+        if (txt == null) {
+            return false;
+        }
+        if (modeJep413 && txt.contains("@snippet")) {
+            return true;
+        }
+        if (modeLegacy && (txt.contains("@codesnippet") || (!classes.isEmpty() && txt.contains("@link")))) {
+            return true;
+        }
+        return false;
+    }
+
+    private static int next(Matcher m, int from) {
+        return m != null && m.find(from) ? m.start() : Integer.MAX_VALUE;
+    }
+
+    private int nextLinkSnippet(Matcher m, int from) {
+        if (m == null) {
+            return Integer.MAX_VALUE;
+        }
+        m.region(from, m.regionEnd());
+        return findLinkSnippet(m) ? m.start() : Integer.MAX_VALUE;
+    }
+
     static Matcher matchSnippet(
         SnippetCollection snippets,
         String txt, String[] code, int[] end
     ) {
-        return matchSnippet((__) -> snippets, null, txt, code, end);
+        Matcher match = SNIPPET.matcher(txt);
+        if (match.find()) {
+            expandSnippet((__) -> snippets, (text) -> JavaHighlighter.highlight(
+                text, Collections.emptyMap(), Collections.emptySet()
+            ), null, txt, match, code, end);
+            return match;
+        }
+        return null;
     }
 
-    private static Matcher matchSnippet(
-        Function<Doc, SnippetCollection> snippets, Doc element,
-        String txt, String[] code, int[] end
+    private static void expandSnippet(
+        Function<Doc, SnippetCollection> snippets, Function<String, String> highlighter,
+        Doc element, String txt, Matcher match, String[] code, int[] end
     ) {
-        Matcher match = SNIPPET.matcher(txt);
-        if (match.find()) {
-            int s = match.start();
-            int colon = txt.indexOf(':', s);
-            if (colon != -1 && colon < match.end()) {
-                int curly = 1;
-                end[0] = colon + 1;
-                for (;;) {
-                    char ch = txt.charAt(end[0]++);
-                    if (ch == '}') {
-                        if (--curly <= 0) {
-                            break;
-                        }
-                    }
-                    if (ch == '{') {
-                        curly++;
+        int s = match.start();
+        int colon = txt.indexOf(':', s);
+        if (colon != -1 && colon < match.end()) {
+            int curly = 1;
+            end[0] = colon + 1;
+            for (;;) {
+                char ch = txt.charAt(end[0]++);
+                if (ch == '}') {
+                    if (--curly <= 0) {
+                        break;
                     }
                 }
-                code[0] = pre(CodeSnippet.boldJavaKeywords(
-                    txt.substring(colon + 1, end[0] - 1),
-                    Collections.emptyMap(), Collections.emptySet()
-                ));
-            } else {
-                Map<String,String> attr = parseAttributes(match.group(1));
-                code[0] = pre(snippets.apply(element).findSnippet(element, attr.get("file"), attr.get("region")));
-                end[0] = match.end();
+                if (ch == '{') {
+                    curly++;
+                }
             }
-            return match;
+            code[0] = pre(highlighter.apply(txt.substring(colon + 1, end[0] - 1)));
+        } else {
+            Map<String,String> attr = parseAttributes(match.group(1));
+            code[0] = pre(snippets.apply(element).findSnippet(element, attr.get("file"), attr.get("region")));
+            end[0] = match.end();
         }
-        return null;
     }
 
     private static String pre(String code) {
         return "<pre class='snippet'>" + code + "</pre>";
     }
 
-    Matcher matchLegacyCodeSnippet(
+    private static void expandLegacyCodeSnippet(
         Function<Doc, SnippetCollection> snippets, Doc element,
-        String txt, String[] code, int[] end
+        Matcher match, String[] code, int[] end
     ) {
-        Matcher match = TAG.matcher(txt);
-        if (!match.find()) {
-            if (classes.isEmpty()) {
-                return null;
-            }
-            match = LINKTAG.matcher(txt);
-            if (!findLinkSnippet(match)) {
-                return null;
-            }
-        }
         code[0] = pre(snippets.apply(element).findGlobalSnippet(element, match.group(1)));
         end[0] = match.end(0);
-        return match;
     }
 
     private static Map<String, String> parseAttributes(String txt) {
@@ -245,35 +315,137 @@ final class Snippets {
         }
     }
 
-    SnippetCollection getSnippet(Doc element) {
+    synchronized SnippetCollection getSnippet(Doc element) {
         if (snippets == null) {
-            SnippetCollection tmp = new SnippetCollection(reporter);
-            final Map<String,String> topClasses = new TreeMap<>();
+            if (lazy) {
+                snippets = new SnippetCollection(collectionReporter(),
+                    (file, c) -> deferLoad(file, () -> loadFile(file, c)),
+                    (c) -> deferLoad("", () -> scanAll(null, c))
+                );
+            } else {
+                SnippetCollection tmp = new SnippetCollection(collectionReporter());
+                scanAll(element, tmp);
+                snippets = tmp;
+            }
+        }
+        return snippets;
+    }
+
+    private void scanAll(Doc element, SnippetCollection into) {
+        final Map<String,String> topClasses = new TreeMap<>();
+        final Map<Path, SnippetCache> caches = new LinkedHashMap<>();
+        if (cacheDir != null) {
+            for (Path path : search) {
+                if (!caches.containsKey(path)) {
+                    caches.put(path, SnippetCache.load(cacheDir, path, this));
+                }
+            }
+        }
+        if (threads > 1) {
+            new SnippetScanner(this, threads).scan(element, visible, search, topClasses, caches, into);
+        } else {
             for (Path path : visible) {
                 if (!Files.isDirectory(path)) {
                     printWarning(null, "Cannot scan " + path + " not a directory!");
                     continue;
                 }
                 try {
-                    CodeSnippet.collectClasses(path, topClasses, this);
+                    CodeSnippet.collectClasses(path, topClasses, this, caches.get(path));
                 } catch (IOException ex) {
                     printError(element, "Cannot read " + path + ": " + ex.getMessage());
                 }
             }
+            prepareCaches(caches, topClasses);
             for (Path path : search) {
                 if (!Files.isDirectory(path)) {
                     printWarning(null, "Cannot scan " + path + " not a directory!");
                     continue;
                 }
                 try {
-                    CodeSnippet.scanDir(path, topClasses, tmp, this);
+                    CodeSnippet.scanDir(path, topClasses, into, this, caches.get(path));
                 } catch (IOException ex) {
                     printError(element, "Cannot read " + path + ": " + ex.getMessage());
                 }
             }
-            snippets = tmp;
         }
-        return snippets;
+        for (SnippetCache cache : caches.values()) {
+            try {
+                cache.save();
+            } catch (IOException ex) {
+                printWarning(null, "Cannot write snippet cache to " + cacheDir + ": " + ex.getMessage());
+            }
+        }
+    }
+
+    private void loadFile(String file, SnippetCollection into) {
+        for (Path root : new LinkedHashSet<>(search)) {
+            Path f = root.resolve(file);
+            if (!Files.isRegularFile(f)) {
+                continue;
+            }
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(f, BasicFileAttributes.class);
+                Map<String, String> topClasses = packageClasses(root.relativize(f.getParent()));
+                Map<String, String> regions = CodeSnippet.regionsOf(root, f, attrs, topClasses, this, null);
+                String fullName = CodeSnippet.fullName(root, f);
+                for (Map.Entry<String, String> entry : regions.entrySet()) {
+                    into.registerSnippet(fullName, entry.getKey(), entry.getValue());
+                }
+            } catch (IOException ex) {
+                printError(null, "Cannot read " + f + ": " + ex.getMessage());
+            }
+        }
+    }
+
+    /** Classes of the given package. Used instead of scanning all the
+     * visible roots when only a single file is being loaded.
+     */
+    private Map<String, String> packageClasses(Path pkgDir) throws IOException {
+        Map<String, String> classes = new TreeMap<>();
+        if (pkgDir.toString().isEmpty()) {
+            return classes;
+        }
+        StringBuilder pkg = new StringBuilder();
+        for (Path name : pkgDir) {
+            if (pkg.length() > 0) {
+                pkg.append('.');
+            }
+            pkg.append(name.toString());
+        }
+        for (Path root : visible) {
+            Path dir = root.resolve(pkgDir.toString());
+            if (!Files.isDirectory(dir)) {
+                continue;
+            }
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "*.java")) {
+                for (Path java : ds) {
+                    String javaName = CodeSnippet.javaName(java);
+                    classes.put(javaName, pkg + "." + javaName);
+                }
+            }
+        }
+        return classes;
+    }
+
+    final void prepareCaches(Map<Path, SnippetCache> caches, Map<String, String> topClasses) {
+        if (!caches.isEmpty()) {
+            String fingerprint = cacheFingerprint(topClasses);
+            for (SnippetCache cache : caches.values()) {
+                cache.setFingerprint(fingerprint);
+            }
+        }
+    }
+
+    private String cacheFingerprint(Map<String, String> topClasses) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(modeJep413).append(',').append(modeLegacy).append(',');
+        sb.append(maxLineLength).append(',').append(getEncoding().name()).append(',');
+        sb.append(regexHighlighter ? "regex" : "lexer").append('\n');
+        sb.append(ClassNames.lookupPath());
+        for (Map.Entry<String, String> entry : topClasses.entrySet()) {
+            sb.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+        }
+        return SnippetCache.hash(sb.toString().getBytes(StandardCharsets.UTF_8));
     }
 
     void addPath(Path path, boolean useLink) {
@@ -288,6 +460,11 @@ final class Snippets {
     }
 
     final void printNotice(Doc where, String msg) {
+        Deferred d = deferred.get();
+        if (d != null) {
+            d.reports.add(() -> printNotice(where, msg));
+            return;
+        }
         if (reporter != null) {
             if (where == null) {
                 reporter.printNotice(msg);
@@ -300,6 +477,11 @@ final class Snippets {
     }
 
     final void printWarning(Doc where, String msg) {
+        Deferred d = deferred.get();
+        if (d != null) {
+            d.reports.add(() -> printWarning(where, msg));
+            return;
+        }
         if (reporter != null) {
             if (where == null) {
                 reporter.printWarning(msg);
@@ -312,6 +494,13 @@ final class Snippets {
     }
 
     final void printError(Doc where, String msg) {
+        Deferred d = deferred.get();
+        if (d != null) {
+            d.errors++;
+            d.reports.add(() -> printError(where, msg));
+            return;
+        }
+        errorCount++;
         if (reporter != null) {
             if (where == null) {
                 reporter.printError(msg);
@@ -365,6 +554,91 @@ final class Snippets {
         return charset;
     }
 
+    int getErrorCount() {
+        Deferred d = deferred.get();
+        return d != null ? d.errors : errorCount;
+    }
+
+    /** Loads snippets on demand. When comments are expanded in parallel
+     * the messages of the load are kept aside, so they do not end up
+     * among the messages of the element that happened to need the file
+     * first. They are reported by {@link #reportLoads()}.
+     */
+    private void deferLoad(String file, Runnable load) {
+        if (deferred.get() == null) {
+            load.run();
+            return;
+        }
+        List<Runnable> reports = deferReports(load);
+        if (!reports.isEmpty()) {
+            synchronized (loadReports) {
+                loadReports.computeIfAbsent(file, (__) -> new ArrayList<>()).addAll(reports);
+            }
+        }
+    }
+
+    /** Reports messages of snippets loaded on demand since the last call,
+     * ordered by the path of the loaded file.
+     */
+    final void reportLoads() {
+        List<Runnable> reports = new ArrayList<>();
+        synchronized (loadReports) {
+            for (List<Runnable> list : loadReports.values()) {
+                reports.addAll(list);
+            }
+            loadReports.clear();
+        }
+        for (Runnable r : reports) {
+            r.run();
+        }
+    }
+
+    /** Runs the task and collects messages it reports instead of printing
+     * them. Used when processing files in parallel to report the messages
+     * in a deterministic order later.
+     *
+     * @param task the task to execute
+     * @return messages to replay by invoking {@link Runnable#run()}
+     */
+    final List<Runnable> deferReports(Runnable task) {
+        Deferred prev = deferred.get();
+        Deferred d = new Deferred();
+        deferred.set(d);
+        try {
+            task.run();
+        } finally {
+            if (prev == null) {
+                deferred.remove();
+            } else {
+                deferred.set(prev);
+            }
+        }
+        return d.reports;
+    }
+
+    void setLazy(boolean lazy) {
+        this.lazy = lazy;
+    }
+
+    void setThreads(String threads) {
+        if (threads != null) {
+            try {
+                int cnt = Integer.parseInt(threads);
+                this.threads = cnt <= 0 ? Runtime.getRuntime().availableProcessors() : cnt;
+            } catch (NumberFormatException ex) {
+                printWarning(null, "Ignoring number of threads: " + threads);
+            }
+        }
+    }
+
+    int getThreads() {
+        return threads;
+    }
+
+    void setCacheDir(Path cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
     void setModeJep413(boolean b) {
         this.modeJep413 = b;
     }
@@ -373,6 +647,77 @@ final class Snippets {
         this.modeLegacy = b;
     }
 
+    boolean setParser(String parser) {
+        switch (parser) {
+            case "regex":
+                this.regexParser = true;
+                return true;
+            case "tokenizer":
+                this.regexParser = false;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    boolean setHighlighter(String highlighter) {
+        switch (highlighter) {
+            case "regex":
+                this.regexHighlighter = true;
+                return true;
+            case "lexer":
+                this.regexHighlighter = false;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    String highlight(String text, Map<String, String> imports, Set<String> packages) {
+        if (regexHighlighter) {
+            return CodeSnippet.boldJavaKeywords(text, imports, packages);
+        }
+        return JavaHighlighter.highlight(text, imports, packages);
+    }
+
+    private String highlightInline(String text) {
+        return highlight(text, Collections.emptyMap(), Collections.emptySet());
+    }
+
+    String packageName(String line) {
+        if (regexParser) {
+            Matcher m = packageMatcher(line);
+            return m.matches() ? m.group(1) : null;
+        }
+        return MarkerTokenizer.packageName(line);
+    }
+
+    String importName(String line) {
+        if (regexParser) {
+            Matcher m = importMatcher(line);
+            return m.matches() ? m.group(1) : null;
+        }
+        return MarkerTokenizer.importName(line);
+    }
+
+    String[] startMarker(String line) {
+        if (regexParser) {
+            return groups(startMatcher(line));
+        }
+        return MarkerTokenizer.startMarker(line, modeLegacy, modeJep413);
+    }
+
+    String[] endMarker(String line) {
+        if (regexParser) {
+            return groups(endMatcher(line));
+        }
+        return MarkerTokenizer.endMarker(line, modeLegacy, modeJep413);
+    }
+
+    private static String[] groups(Matcher m) {
+        return m.matches() ? new String[] { m.group(1), m.group(2) } : null;
+    }
+
     Matcher packageMatcher(CharSequence line) {
         return PACKAGE.matcher(line);
     }
@@ -413,4 +758,75 @@ final class Snippets {
         Pattern noMatch = PACKAGE;
         return noMatch.matcher("");
     }
+
+    /** Reporter for the {@link SnippetCollection}, so its warnings are
+     * deferred as well when expanding comments in parallel.
+     */
+    private DocErrorReporter collectionReporter() {
+        if (reporter == null) {
+            return null;
+        }
+        return new DocErrorReporter() {
+            @Override
+            public void printError(String msg) {
+                if (!defer(() -> printError(msg), true)) {
+                    errorCount++;
+                    reporter.printError(msg);
+                }
+            }
+
+            @Override
+            public void printError(SourcePosition pos, String msg) {
+                if (!defer(() -> printError(pos, msg), true)) {
+                    errorCount++;
+                    reporter.printError(pos, msg);
+                }
+            }
+
+            @Override
+            public void printWarning(String msg) {
+                if (!defer(() -> printWarning(msg), false)) {
+                    reporter.printWarning(msg);
+                }
+            }
+
+            @Override
+            public void printWarning(SourcePosition pos, String msg) {
+                if (!defer(() -> printWarning(pos, msg), false)) {
+                    reporter.printWarning(pos, msg);
+                }
+            }
+
+            @Override
+            public void printNotice(String msg) {
+                if (!defer(() -> printNotice(msg), false)) {
+                    reporter.printNotice(msg);
+                }
+            }
+
+            @Override
+            public void printNotice(SourcePosition pos, String msg) {
+                if (!defer(() -> printNotice(pos, msg), false)) {
+                    reporter.printNotice(pos, msg);
+                }
+            }
+        };
+    }
+
+    private boolean defer(Runnable report, boolean error) {
+        Deferred d = deferred.get();
+        if (d == null) {
+            return false;
+        }
+        if (error) {
+            d.errors++;
+        }
+        d.reports.add(report);
+        return true;
+    }
+
+    private static final class Deferred {
+        final List<Runnable> reports = new ArrayList<>();
+        int errors;
+    }
 }
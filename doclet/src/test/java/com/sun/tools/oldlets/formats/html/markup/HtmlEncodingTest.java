@@ -0,0 +1,198 @@
+/**
+ * Codesnippet Javadoc Doclet
+ * Copyright (C) 2015-2026 Jaroslav Tulach - jaroslav.tulach@apidesign.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.0 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://opensource.org/licenses/GPL-3.0.
+ */
+package com.sun.tools.oldlets.formats.html.markup;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.Random;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import org.testng.annotations.Test;
+
+public class HtmlEncodingTest {
+    private static final String[] SAMPLES = {
+        "",
+        "plain",
+        "a<b>&c",
+        "<<&&>>",
+        "été über 中文",
+        "😀 smile",
+        "a\ud83dz",
+        "a\ude00z",
+        "\ude00\ud83d",
+        "end\ud83d",
+        ":/?#[]@!$&'()*+,;=",
+        "-._~",
+        "a b\"c%d^e`f{g|h}i\\j",
+        "\u0000\u001f\u007f\u0080߿ࠀ￿",
+        "../p/Class.html#method(java.lang.String[],int...)",
+        "Class.html#élément-𐐀",
+    };
+
+    public HtmlEncodingTest() {
+    }
+
+    @Test
+    public void escapeLikeBefore() throws IOException {
+        for (String s : SAMPLES) {
+            assertEscape(s);
+        }
+        for (char ch = 0; ch < 0x100; ch++) {
+            assertEscape("x" + ch + "y");
+        }
+    }
+
+    @Test
+    public void encodeLikeBefore() throws IOException {
+        for (String s : SAMPLES) {
+            assertEncode(s);
+        }
+        for (char ch = 0; ch < 0x100; ch++) {
+            assertEncode("x" + ch + "y");
+        }
+    }
+
+    @Test
+    public void unpairedSurrogatesAreEncodedAsQuestionMarks() throws IOException {
+        assertEquals(HtmlEncoding.encodeURL("a\ud83dz"), "a?z");
+        assertEquals(HtmlEncoding.encodeURL("a\ude00z"), "a?z");
+        assertEquals(HtmlEncoding.encodeURL("\ude00\ud83d"), "??");
+        assertEquals(HtmlEncoding.encodeURL("😀"), "%F0%9F%98%80");
+    }
+
+    @Test
+    public void randomStringsLikeBefore() throws IOException {
+        Random r = new Random(42);
+        char[] interesting = "<>&%? #~-._aZ09é中😀".toCharArray();
+        for (int round = 0; round < 10000; round++) {
+            char[] arr = new char[r.nextInt(12)];
+            for (int i = 0; i < arr.length; i++) {
+                arr[i] = r.nextBoolean() ? interesting[r.nextInt(interesting.length)]
+                        : (char) r.nextInt(Character.MAX_VALUE + 1);
+            }
+            String s = new String(arr);
+            assertEscape(s);
+            assertEncode(s);
+        }
+    }
+
+    @Test
+    public void unchangedStringsAreReturnedAsTheyAre() {
+        String s = "plain text";
+        assertSame(HtmlEncoding.escapeHtmlChars(s), s);
+        String url = "p/Class.html#method(int)";
+        assertSame(HtmlEncoding.encodeURL(url), url);
+    }
+
+    private static void assertEscape(String s) throws IOException {
+        String expected = oldEscapeHtmlChars(s);
+        assertEquals(HtmlEncoding.escapeHtmlChars(s), expected, s);
+
+        StringBuilder sb = new StringBuilder("prefix");
+        HtmlEncoding.escapeHtmlChars(s, sb);
+        assertEquals(sb.toString(), "prefix" + expected, s);
+
+        StringWriter w = new StringWriter();
+        HtmlEncoding.escapeHtmlChars(s, w);
+        assertEquals(w.toString(), expected, s);
+
+        StringBuilder fromSequence = new StringBuilder();
+        HtmlEncoding.escapeHtmlChars(new StringBuilder(s), (Appendable) fromSequence);
+        assertEquals(fromSequence.toString(), expected, s);
+    }
+
+    private static void assertEncode(String s) throws IOException {
+        String expected = oldEncodeURL(s);
+        assertEquals(HtmlEncoding.encodeURL(s), expected, s);
+
+        StringWriter w = new StringWriter();
+        HtmlEncoding.encodeURL(s, w);
+        assertEquals(w.toString(), expected, s);
+
+        StringBuilder sb = new StringBuilder();
+        HtmlEncoding.encodeURL(new StringBuilder(s), sb);
+        assertEquals(sb.toString(), expected, s);
+    }
+
+    /**
+     * The escaping of HtmlTree before it used HtmlEncoding.
+     */
+    private static String oldEscapeHtmlChars(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                // only start building a new string if we need to
+                case '<': case '>': case '&':
+                    StringBuilder sb = new StringBuilder(s.substring(0, i));
+                    for ( ; i < s.length(); i++) {
+                        ch = s.charAt(i);
+                        switch (ch) {
+                            case '<': sb.append("&lt;");  break;
+                            case '>': sb.append("&gt;");  break;
+                            case '&': sb.append("&amp;"); break;
+                            default:  sb.append(ch);      break;
+                        }
+                    }
+                    return sb.toString();
+            }
+        }
+        return s;
+    }
+
+    private static final BitSet NONENCODING_CHARS = new BitSet(256);
+
+    static {
+        // alphabetic characters
+        for (int i = 'a'; i <= 'z'; i++) {
+            NONENCODING_CHARS.set(i);
+        }
+        for (int i = 'A'; i <= 'Z'; i++) {
+            NONENCODING_CHARS.set(i);
+        }
+        // numeric characters
+        for (int i = '0'; i <= '9'; i++) {
+            NONENCODING_CHARS.set(i);
+        }
+        // Reserved characters as per RFC 3986. These are set of delimiting characters.
+        String noEnc = ":/?#[]@!$&'()*+,;=";
+        // Unreserved characters as per RFC 3986 which should not be percent encoded.
+        noEnc += "-._~";
+        for (int i = 0; i < noEnc.length(); i++) {
+            NONENCODING_CHARS.set(noEnc.charAt(i));
+        }
+    }
+
+    /**
+     * The encoding of HtmlTree before it used HtmlEncoding.
+     */
+    private static String oldEncodeURL(String url) {
+        byte[] urlBytes = url.getBytes(StandardCharsets.UTF_8);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < urlBytes.length; i++) {
+            int c = urlBytes[i];
+            if (NONENCODING_CHARS.get(c & 0xFF)) {
+                sb.append((char) c);
+            } else {
+                sb.append(String.format("%%%02X", c & 0xFF));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * Codesnippet Javadoc Doclet
+ * Copyright (C) 2015-2026 Jaroslav Tulach - jaroslav.tulach@apidesign.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.0 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://opensource.org/licenses/GPL-3.0.
+ */
+package com.sun.tools.oldlets.internal.toolkit.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ChangedFileOutputStreamTest {
+    private static final FileTime OLD = FileTime.fromMillis(1000000000000L);
+
+    private Path dir;
+
+    public ChangedFileOutputStreamTest() {
+    }
+
+    @BeforeMethod
+    public void createDir() throws IOException {
+        dir = Files.createTempDirectory("changed");
+    }
+
+    @AfterMethod
+    public void deleteDir() throws IOException {
+        List<Path> all = new ArrayList<>();
+        try (Stream<Path> s = Files.walk(dir)) {
+            s.forEach(all::add);
+        }
+        Collections.reverse(all);
+        for (Path p : all) {
+            Files.delete(p);
+        }
+    }
+
+    @Test
+    public void unchangedContentKeepsTheFile() throws IOException {
+        Path file = dir.resolve("page.html");
+        Files.write(file, bigContent('x'));
+        Files.setLastModifiedTime(file, OLD);
+
+        write(file, bigContent('x'));
+
+        assertEquals(Files.getLastModifiedTime(file), OLD);
+        assertEquals(Files.readAllBytes(file), bigContent('x'));
+        assertNoTemporaryFiles();
+    }
+
+    @Test
+    public void changedBytesReplaceTheFile() throws IOException {
+        Path file = dir.resolve("page.html");
+        Files.write(file, bigContent('x'));
+        Files.setLastModifiedTime(file, OLD);
+        byte[] changed = bigContent('x');
+        changed[changed.length - 1] = 'y';
+
+        write(file, changed);
+
+        assertNotEquals(Files.getLastModifiedTime(file), OLD);
+        assertEquals(Files.readAllBytes(file), changed);
+        assertNoTemporaryFiles();
+    }
+
+    @Test
+    public void changedSizeReplacesTheFile() throws IOException {
+        Path file = dir.resolve("page.html");
+        Files.write(file, bigContent('x'));
+        Files.setLastModifiedTime(file, OLD);
+
+        write(file, "short".getBytes(StandardCharsets.UTF_8));
+
+        assertNotEquals(Files.getLastModifiedTime(file), OLD);
+        assertEquals(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), "short");
+        assertNoTemporaryFiles();
+    }
+
+    @Test
+    public void missingParentIsCreated() throws IOException {
+        Path file = dir.resolve("org").resolve("pkg").resolve("page.html");
+
+        write(file, "created".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), "created");
+        assertNoTemporaryFiles();
+    }
+
+    @Test
+    public void closingTwiceWritesOnce() throws IOException {
+        Path file = dir.resolve("page.html");
+        ChangedFileOutputStream out = new ChangedFileOutputStream(file.toFile());
+        out.write("once".getBytes(StandardCharsets.UTF_8));
+        out.close();
+        Files.setLastModifiedTime(file, OLD);
+        out.close();
+
+        assertEquals(Files.getLastModifiedTime(file), OLD);
+        assertNoTemporaryFiles();
+    }
+
+    private static void write(Path file, byte[] content) throws IOException {
+        try (OutputStream out = new ChangedFileOutputStream(file.toFile())) {
+            out.write(content);
+        }
+    }
+
+    private static byte[] bigContent(char ch) {
+        byte[] arr = new byte[3 * 8192 + 17];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = (byte) (i % 64 == 63 ? '\n' : ch);
+        }
+        return arr;
+    }
+
+    private void assertNoTemporaryFiles() throws IOException {
+        try (Stream<Path> s = Files.walk(dir)) {
+            s.forEach((p) -> assertTrue(!p.toString().endsWith(".tmp"), "Left behind: " + p));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Codesnippet Javadoc Doclet
+ * Copyright (C) 2015-2026 Jaroslav Tulach - jaroslav.tulach@apidesign.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.0 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://opensource.org/licenses/GPL-3.0.
+ */
+package com.sun.tools.oldlets.internal.toolkit.util;
+
+import java.util.Random;
+import static org.testng.Assert.assertEquals;
+import org.testng.annotations.Test;
+
+public class IndexBuilderTest {
+    private static final String[] PIECES = {
+        "a", "Z", "z", "_", "1", "É", "é", "İ", "ı", "ß",
+        "\ud83d", "\ude00", "😀", "𐐀", "𐐨", "￿"
+    };
+
+    public IndexBuilderTest() {
+    }
+
+    @Test
+    public void unpairedSurrogates() {
+        assertSameOrder("\ud83dÉZ", "\ud83d\ud83d\ud83d");
+        assertSameOrder("😀", "\ud83d￿");
+        assertSameOrder("\ude00a", "😀");
+        assertSameOrder("x\ude00", "x\ud83d");
+    }
+
+    @Test
+    public void sameOrderAsCompareToIgnoreCase() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            assertSameOrder(randomString(random), randomString(random));
+        }
+    }
+
+    private static String randomString(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int len = random.nextInt(5);
+        for (int i = 0; i < len; i++) {
+            sb.append(PIECES[random.nextInt(PIECES.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static void assertSameOrder(String s1, String s2) {
+        String k1 = IndexBuilder.foldCase(s1);
+        String k2 = IndexBuilder.foldCase(s2);
+        int expected = Integer.signum(s1.compareToIgnoreCase(s2));
+        assertEquals(Integer.signum(IndexBuilder.compareKeys(k1, k2)), expected,
+            "Comparing " + escape(s1) + " and " + escape(s2));
+        assertEquals(k1.compareToIgnoreCase(s1), 0, "Folding " + escape(s1));
+        assertEquals(IndexBuilder.foldCase(k1), k1, "Folding twice " + escape(s1));
+    }
+
+    private static String escape(String s) {
+        StringBuilder sb = new StringBuilder();
+        for (char ch : s.toCharArray()) {
+            sb.append(String.format("\\u%04x", (int) ch));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * Codesnippet Javadoc Doclet
+ * Copyright (C) 2015-2026 Jaroslav Tulach - jaroslav.tulach@apidesign.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.0 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://opensource.org/licenses/GPL-3.0.
+ */
+package com.sun.tools.oldlets.internal.toolkit.util;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class PackageListLoaderTest {
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    private HttpServer server;
+    private final Map<String, String> files = new ConcurrentHashMap<>();
+    private final AtomicInteger requests = new AtomicInteger();
+
+    public PackageListLoaderTest() {
+    }
+
+    @BeforeMethod
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            String content = files.get(exchange.getRequestURI().getPath());
+            if (content == null) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                byte[] data = content.getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, data.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(data);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterMethod
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private URL url(String path) throws IOException {
+        return new URL("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + path);
+    }
+
+    @Test
+    public void fallsBackToElementList() throws Exception {
+        files.put("/old/package-list", "org.old\n");
+        files.put("/new/element-list", "module:m\norg.new\n");
+
+        PackageListLoader loader = new PackageListLoader(null, DAY, false);
+        loader.prefetch(Arrays.asList(url("/old/"), url("/new/")));
+        assertEquals(text(loader.load(url("/old/"))), "org.old\n");
+        assertEquals(text(loader.load(url("/new/"))), "module:m\norg.new\n");
+        try {
+            loader.load(url("/missing/"));
+            fail("No list is found");
+        } catch (FileNotFoundException ex) {
+            // OK
+        }
+    }
+
+    @Test
+    public void readsLocalDirectory() throws Exception {
+        Path dir = Files.createTempDirectory("extern");
+        Files.write(dir.resolve("element-list"), "org.local\n".getBytes(StandardCharsets.UTF_8));
+
+        PackageListLoader loader = new PackageListLoader(null, DAY, false);
+        assertEquals(text(loader.load(dir.toUri().toURL())), "org.local\n");
+        delete(dir.toFile());
+    }
+
+    @Test
+    public void cachedUntilExpired() throws Exception {
+        Path cache = Files.createTempDirectory("linkcache");
+        files.put("/api/package-list", "org.api\n");
+
+        PackageListLoader first = new PackageListLoader(cache.toFile(), DAY, false);
+        assertEquals(text(first.load(url("/api/"))), "org.api\n");
+        assertEquals(requests.get(), 1);
+
+        files.put("/api/package-list", "org.api\norg.api.spi\n");
+        PackageListLoader second = new PackageListLoader(cache.toFile(), DAY, false);
+        assertEquals(text(second.load(url("/api/"))), "org.api\n", "Served from the cache");
+        assertEquals(requests.get(), 1);
+
+        PackageListLoader expired = new PackageListLoader(cache.toFile(), 0, false);
+        assertEquals(text(expired.load(url("/api/"))), "org.api\norg.api.spi\n", "Fetched again");
+        assertEquals(requests.get(), 2);
+
+        files.clear();
+        PackageListLoader unavailable = new PackageListLoader(cache.toFile(), 0, false);
+        assertEquals(text(unavailable.load(url("/api/"))), "org.api\norg.api.spi\n", "Expired copy used");
+        delete(cache.toFile());
+    }
+
+    @Test
+    public void offlineUsesOnlyCache() throws Exception {
+        Path cache = Files.createTempDirectory("linkcache");
+        files.put("/api/package-list", "org.api\n");
+        new PackageListLoader(cache.toFile(), DAY, false).load(url("/api/"));
+        int fetched = requests.get();
+
+        PackageListLoader offline = new PackageListLoader(cache.toFile(), 0, true);
+        offline.prefetch(Arrays.asList(url("/api/"), url("/other/")));
+        assertEquals(text(offline.load(url("/api/"))), "org.api\n");
+        try {
+            offline.load(url("/other/"));
+            fail("Not in the cache");
+        } catch (FileNotFoundException ex) {
+            // OK
+        }
+        assertEquals(requests.get(), fetched, "Nothing fetched offline");
+        delete(cache.toFile());
+    }
+
+    private static String text(byte[] data) {
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File f : children) {
+                delete(f);
+            }
+        }
+        assertTrue(file.delete(), "Deleted " + file);
+    }
+}
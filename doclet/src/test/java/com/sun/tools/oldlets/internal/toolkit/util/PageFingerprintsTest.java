@@ -0,0 +1,234 @@
+/**
+ * Codesnippet Javadoc Doclet
+ * Copyright (C) 2015-2026 Jaroslav Tulach - jaroslav.tulach@apidesign.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.0 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://opensource.org/licenses/GPL-3.0.
+ */
+package com.sun.tools.oldlets.internal.toolkit.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+import org.testng.SkipException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class PageFingerprintsTest {
+    private static final FileTime OLD = FileTime.fromMillis(1000000000000L);
+
+    private Path dir;
+
+    public PageFingerprintsTest() {
+    }
+
+    @BeforeMethod
+    public void createDir() throws IOException {
+        dir = Files.createTempDirectory("incremental");
+    }
+
+    @AfterMethod
+    public void deleteDir() throws IOException {
+        List<Path> all = new ArrayList<>();
+        try (Stream<Path> s = Files.walk(dir)) {
+            s.forEach(all::add);
+        }
+        Collections.reverse(all);
+        for (Path p : all) {
+            Files.delete(p);
+        }
+    }
+
+    @Test
+    public void changedDependencyRegeneratesPage() throws Exception {
+        source("Consts.java",
+            "package p;\n"
+            + "/** Constants. */\n"
+            + "public class Consts {\n"
+            + "    /** The value. */\n"
+            + "    public static final int VALUE = 1;\n"
+            + "    /** A method. */\n"
+            + "    public static void compute(int x) {}\n"
+            + "}\n");
+        source("User.java",
+            "package p;\n"
+            + "/** Uses {@value p.Consts#VALUE}. */\n"
+            + "public class User {\n"
+            + "}\n");
+        source("Linker.java",
+            "package p;\n"
+            + "/** Calls {@link Consts#compute}. */\n"
+            + "public class Linker {\n"
+            + "}\n");
+        source("Other.java",
+            "package p;\n"
+            + "/** Unrelated. */\n"
+            + "public class Other {\n"
+            + "}\n");
+        javadoc();
+        assertTrue(read("User.html").contains(">1</a>"), read("User.html"));
+        for (String page : new String[] { "User.html", "Linker.html", "Other.html" }) {
+            Files.setLastModifiedTime(page(page), OLD);
+        }
+
+        source("Consts.java",
+            "package p;\n"
+            + "/** Constants. */\n"
+            + "public class Consts {\n"
+            + "    /** The value. */\n"
+            + "    public static final int VALUE = 42;\n"
+            + "    /** A method. */\n"
+            + "    public static void compute(long x) {}\n"
+            + "}\n");
+        String log = javadoc();
+
+        assertTrue(read("User.html").contains(">42</a>"), read("User.html"));
+        assertTrue(read("Linker.html").contains("compute(long)"), read("Linker.html"));
+        assertNotEquals(Files.getLastModifiedTime(page("User.html")), OLD, "Value changed");
+        assertNotEquals(Files.getLastModifiedTime(page("Linker.html")), OLD, "Link target changed");
+        assertEquals(Files.getLastModifiedTime(page("Other.html")), OLD, "Unrelated page kept");
+        assertTrue(log.contains("1 unchanged page was not generated again"), log);
+    }
+
+    @Test
+    public void renamedParameterRegeneratesPage() throws Exception {
+        source("A.java",
+            "package p;\n"
+            + "/** Runs. */\n"
+            + "public class A {\n"
+            + "    /** Run. */\n"
+            + "    public void run(int oldName) {}\n"
+            + "}\n");
+        source("Other.java",
+            "package p;\n"
+            + "/** Unrelated. */\n"
+            + "public class Other {\n"
+            + "}\n");
+        javadoc();
+        assertTrue(read("A.html").contains("oldName"), read("A.html"));
+        for (String page : new String[] { "A.html", "Other.html" }) {
+            Files.setLastModifiedTime(page(page), OLD);
+        }
+
+        source("A.java",
+            "package p;\n"
+            + "/** Runs. */\n"
+            + "public class A {\n"
+            + "    /** Run. */\n"
+            + "    public void run(@Deprecated int newName) {}\n"
+            + "}\n");
+        String log = javadoc();
+
+        assertTrue(read("A.html").contains("newName"), read("A.html"));
+        assertTrue(!read("A.html").contains("oldName"), read("A.html"));
+        assertNotEquals(Files.getLastModifiedTime(page("A.html")), OLD, "Parameter renamed");
+        assertEquals(Files.getLastModifiedTime(page("Other.html")), OLD, "Unrelated page kept");
+        assertTrue(log.contains("1 unchanged page was not generated again"), log);
+    }
+
+    @Test
+    public void changedKindOfParameterTypeRegeneratesPage() throws Exception {
+        source("T.java",
+            "package p;\n"
+            + "/** A type. */\n"
+            + "public class T {\n"
+            + "}\n");
+        source("U.java",
+            "package p;\n"
+            + "/** Uses the type. */\n"
+            + "public class U {\n"
+            + "    /** Takes it. */\n"
+            + "    public void m(T t) {}\n"
+            + "}\n");
+        source("Other.java",
+            "package p;\n"
+            + "/** Unrelated. */\n"
+            + "public class Other {\n"
+            + "}\n");
+        javadoc();
+        assertTrue(read("U.html").contains("title=\"class in p\""), read("U.html"));
+        for (String page : new String[] { "U.html", "Other.html" }) {
+            Files.setLastModifiedTime(page(page), OLD);
+        }
+
+        source("T.java",
+            "package p;\n"
+            + "/** A type. */\n"
+            + "public interface T {\n"
+            + "}\n");
+        String log = javadoc();
+
+        assertTrue(read("U.html").contains("title=\"interface in p\""), read("U.html"));
+        assertTrue(!read("U.html").contains("title=\"class in p\""), read("U.html"));
+        assertNotEquals(Files.getLastModifiedTime(page("U.html")), OLD, "Kind of parameter type changed");
+        assertEquals(Files.getLastModifiedTime(page("Other.html")), OLD, "Unrelated page kept");
+        assertTrue(log.contains("1 unchanged page was not generated again"), log);
+    }
+
+    private void source(String name, String content) throws IOException {
+        Path file = dir.resolve("src").resolve("p").resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Path page(String name) {
+        return dir.resolve("out").resolve("p").resolve(name);
+    }
+
+    private String read(String name) throws IOException {
+        return new String(Files.readAllBytes(page(name)), StandardCharsets.UTF_8);
+    }
+
+    private String javadoc() throws Exception {
+        Path javadoc = Paths.get(System.getProperty("java.home"), "bin", "javadoc");
+        if (!Files.isExecutable(javadoc)) {
+            throw new SkipException("No javadoc in " + javadoc);
+        }
+        File docletPath = new File(PageFingerprints.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        ProcessBuilder pb = new ProcessBuilder(Arrays.asList(
+            javadoc.toString(), "-J-Duser.language=en", "-J-Duser.country=US",
+            "-doclet", "org.apidesign.javadoc.codesnippet.Doclet",
+            "-docletpath", docletPath.getPath(),
+            "-sourcepath", dir.resolve("src").toString(),
+            "-d", dir.resolve("out").toString(),
+            "-incremental", "-keepunchanged", "p"
+        ));
+        pb.redirectErrorStream(true);
+        Process p = pb.start();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream is = p.getInputStream()) {
+            byte[] arr = new byte[4096];
+            for (int n; (n = is.read(arr)) != -1;) {
+                out.write(arr, 0, n);
+            }
+        }
+        String log = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals(p.waitFor(), 0, log);
+        return log;
+    }
+}
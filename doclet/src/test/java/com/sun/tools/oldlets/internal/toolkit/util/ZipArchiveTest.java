@@ -0,0 +1,85 @@
+/**
+ * Codesnippet Javadoc Doclet
+ * Copyright (C) 2015-2026 Jaroslav Tulach - jaroslav.tulach@apidesign.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.0 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://opensource.org/licenses/GPL-3.0.
+ */
+package com.sun.tools.oldlets.internal.toolkit.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+public class ZipArchiveTest {
+
+    public ZipArchiveTest() {
+    }
+
+    @Test
+    public void readableByZipFile() throws Exception {
+        Path file = Files.createTempFile("docs", ".zip");
+        ZipArchive archive = new ZipArchive(file);
+        add(archive, "index.html", "<html>index</html>");
+        add(archive, "org/pkg/Čau.html", "<html>Čau</html>");
+        add(archive, "index.html", "<html>replaced</html>");
+        assertTrue(archive.contains("org/pkg/Čau.html"));
+        archive.close();
+
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            assertEquals(zip.size(), 2);
+            assertEquals(read(zip, "index.html"), "<html>replaced</html>");
+            assertEquals(read(zip, "org/pkg/Čau.html"), "<html>Čau</html>");
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void tooManyEntriesUseZip64() throws Exception {
+        Path file = Files.createTempFile("docs", ".zip");
+        ZipArchive archive = new ZipArchive(file);
+        for (int i = 0; i < 70000; i++) {
+            add(archive, "p/C" + i + ".html", "class " + i);
+        }
+        archive.close();
+
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            assertEquals(zip.size(), 70000);
+            assertEquals(read(zip, "p/C69999.html"), "class 69999");
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void add(ZipArchive archive, String name, String content) throws IOException {
+        byte[] data = content.getBytes(StandardCharsets.UTF_8);
+        archive.add(ZipArchive.compress(name, data, data.length));
+    }
+
+    private static String read(ZipFile zip, String name) throws IOException {
+        ZipEntry entry = zip.getEntry(name);
+        assertNotNull(entry, name);
+        try (InputStream is = zip.getInputStream(entry)) {
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * Codesnippet Javadoc Doclet
+ * Copyright (C) 2015-2026 Jaroslav Tulach - jaroslav.tulach@apidesign.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.0 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://opensource.org/licenses/GPL-3.0.
+ */
+package com.sun.tools.oldlets.javadoc.main;
+
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.LanguageVersion;
+import com.sun.javadoc.RootDoc;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class JavadocToolTest {
+    private static final String[] JAVAC_PACKAGES = {
+        "api", "code", "comp", "file", "jvm", "main", "model",
+        "parser", "platform", "resources", "tree", "util"
+    };
+
+    private Path dir;
+
+    public JavadocToolTest() {
+    }
+
+    @BeforeMethod
+    public void createDir() throws IOException {
+        dir = Files.createTempDirectory("javadoctool");
+    }
+
+    @AfterMethod
+    public void deleteDir() throws IOException {
+        List<Path> all = new ArrayList<>();
+        try (Stream<Path> s = Files.walk(dir)) {
+            s.forEach(all::add);
+        }
+        Collections.reverse(all);
+        for (Path p : all) {
+            Files.delete(p);
+        }
+    }
+
+    @Test
+    public void sourceFileListedWithPackagesIsEnteredOnce() throws Exception {
+        source("src/p/A.java",
+            "package p;\n"
+            + "/** A. */\n"
+            + "public class A {\n"
+            + "}\n");
+        source("src/r/R.java",
+            "package r;\n"
+            + "/** R. */\n"
+            + "public class R {\n"
+            + "}\n");
+        Path b = source("other/q/B.java",
+            "package q;\n"
+            + "/** Uses {@link p.A}. */\n"
+            + "public class B {\n"
+            + "    /** Runs. */\n"
+            + "    public void run() {}\n"
+            + "}\n");
+
+        String out = javadoc("-sourcepath", dir.resolve("src").toString(),
+            b.toString(), "p", "r");
+
+        assertTrue(out.contains("class q.B included with 1 methods\n"), out);
+        assertTrue(out.contains("class p.A included with 0 methods\n"), out);
+        assertTrue(out.contains("class r.R included with 0 methods\n"), out);
+        assertTrue(out.contains("specified class q.B\n"), out);
+    }
+
+    private Path source(String name, String content) throws IOException {
+        Path file = dir.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    /**
+     * Runs {@link Lister} in a separate VM that can access the
+     * internals of javac.
+     */
+    private static String javadoc(String... args) throws Exception {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        for (String pkg : JAVAC_PACKAGES) {
+            cmd.add("--add-exports");
+            cmd.add("jdk.compiler/com.sun.tools.javac." + pkg + "=ALL-UNNAMED");
+        }
+        cmd.add("-Duser.language=en");
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add(Lister.class.getName());
+        cmd.addAll(Arrays.asList(args));
+        ProcessBuilder pb = new ProcessBuilder(cmd);
+        pb.redirectErrorStream(true);
+        Process p = pb.start();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream is = p.getInputStream()) {
+            byte[] arr = new byte[4096];
+            for (int n; (n = is.read(arr)) != -1;) {
+                out.write(arr, 0, n);
+            }
+        }
+        String log = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals(p.waitFor(), 0, log);
+        return log;
+    }
+
+    public static final class Lister {
+        public static boolean start(RootDoc root) {
+            for (ClassDoc cd : root.classes()) {
+                System.out.print("class " + cd.qualifiedName()
+                    + (cd.isIncluded() ? " included" : "")
+                    + " with " + cd.methods().length + " methods\n");
+            }
+            for (ClassDoc cd : root.specifiedClasses()) {
+                System.out.print("specified class " + cd.qualifiedName() + "\n");
+            }
+            return true;
+        }
+
+        public static LanguageVersion languageVersion() {
+            return LanguageVersion.JAVA_1_5;
+        }
+
+        public static void main(String... args) {
+            PrintWriter pw = new PrintWriter(System.out, true);
+            Start start = new Start("javadoc", pw, pw, pw,
+                Lister.class.getName(), Lister.class.getClassLoader());
+            boolean ok = start.begin(Lister.class, Arrays.asList(args), Collections.emptyList());
+            pw.flush();
+            System.exit(ok ? 0 : 1);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Codesnippet Javadoc Doclet
+ * Copyright (C) 2015-2020 Jaroslav Tulach - jaroslav.tulach@apidesign.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.0 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://opensource.org/licenses/GPL-3.0.
+ */
+package org.apidesign.javadoc.codesnippet;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import static org.testng.Assert.assertEquals;
+import org.testng.annotations.Test;
+
+public class JavaHighlighterTest {
+    private static final Map<String, String> IMPORTS = Collections.singletonMap("Callable", "java.util.concurrent.Callable");
+    private static final Set<String> PACKAGES = Collections.singleton("java.util");
+
+    public JavaHighlighterTest() {
+    }
+
+    @Test
+    public void sameOutputAsRegexForClassicCode() {
+        String code = "&#064;Override\n"
+            + "public List&lt;String&gt; call(Callable&lt;Integer&gt; c) throws Exception {\n"
+            + "    // compute the value\n"
+            + "    int x = c.call() + 42;\n"
+            + "    if (x &gt; 0 &amp;&amp; x != 10) {\n"
+            + "        return new ArrayList&lt;&gt;(Arrays.asList(\"a // b\", \"x\"));\n"
+            + "    }\n"
+            + "    Map&lt;String, Object&gt; unknown = null;\n"
+            + "    return Undefined.empty();\n"
+            + "}\n";
+        String regex = CodeSnippet.boldJavaKeywords(code, IMPORTS, PACKAGES);
+        String lexer = JavaHighlighter.highlight(code, IMPORTS, PACKAGES);
+        assertEquals(lexer, regex);
+    }
+
+    @Test
+    public void blockCommentsAndCharLiterals() {
+        String code = "/* public String */ char c = '\"'; String s = \"\\\"if\\\"\";\n";
+        assertEquals(JavaHighlighter.highlight(code, IMPORTS, PACKAGES),
+            "<em>/* public String */</em> <b>char</b> c = <em>'\"'</em>; {@link java.lang.String} s = <em>\"\\\"if\\\"\"</em>;\n"
+        );
+    }
+
+    @Test
+    public void textBlocks() {
+        String code = "String html = \"\"\"\n    &lt;p&gt;if \"quoted\" while\n    \"\"\";\n";
+        assertEquals(JavaHighlighter.highlight(code, IMPORTS, PACKAGES),
+            "{@link java.lang.String} html = <em>\"\"\"\n    &lt;p&gt;if \"quoted\" while\n    \"\"\"</em>;\n"
+        );
+    }
+
+    @Test
+    public void contextualKeywords() {
+        Map<String, String> none = new TreeMap<>();
+        assertEquals(JavaHighlighter.highlight("var var = record;\n", none, null),
+            "<b>var</b> var = record;\n"
+        );
+        assertEquals(JavaHighlighter.highlight("sealed interface Shape permits Circle {}\n", none, null),
+            "<b>sealed</b> <b>interface</b> Shape <b>permits</b> Circle {}\n"
+        );
+        assertEquals(JavaHighlighter.highlight("non-sealed class Circle {}\nrecord Point(int x) {}\n", none, null),
+            "<b>non-sealed</b> <b>class</b> Circle {}\n<b>record</b> Point(<b>int</b> x) {}\n"
+        );
+        assertEquals(JavaHighlighter.highlight("case Circle c when c.r() &gt; 0 -&gt; yield 1;\nint non = x-sealed;\n", none, null),
+            "<b>case</b> Circle c <b>when</b> c.r() &gt; 0 -&gt; <b>yield</b> 1;\n<b>int</b> non = x-sealed;\n"
+        );
+    }
+}
@@ -123,6 +123,39 @@ public class SnippetsRegexTest {
         assertContains(code[0], "42");
     }
 
+    @Test
+    public void tokenizerRecognizesTheSameLinesAsRegex() {
+        String[] pieces = {
+            "//", " ", "  ", "BEGIN:", "END:", "FINISH:", "@start", "@end",
+            "region=\"", "xyz", "a.b", "\"", "-->", "<!--", "12", "#", ">",
+            "import", "package", "java.io.*", ";", "GEN-", "\u2028", "\t", "\u00e1"
+        };
+        java.util.Random random = new java.util.Random(42);
+        Snippets regex = new Snippets(null);
+        regex.setParser("regex");
+        Snippets tokenizer = new Snippets(null);
+        tokenizer.setParser("tokenizer");
+        boolean[][] modes = { { true, true }, { true, false }, { false, true } };
+        for (int i = 0; i < 100000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int cnt = random.nextInt(8);
+            for (int j = 0; j < cnt; j++) {
+                sb.append(pieces[random.nextInt(pieces.length)]);
+            }
+            String line = sb.toString();
+            for (boolean[] mode : modes) {
+                regex.setModeLegacy(mode[0]);
+                regex.setModeJep413(mode[1]);
+                tokenizer.setModeLegacy(mode[0]);
+                tokenizer.setModeJep413(mode[1]);
+                assertEquals(tokenizer.startMarker(line), regex.startMarker(line), "start of '" + line + "'");
+                assertEquals(tokenizer.endMarker(line), regex.endMarker(line), "end of '" + line + "'");
+                assertEquals(tokenizer.importName(line), regex.importName(line), "import of '" + line + "'");
+                assertEquals(tokenizer.packageName(line), regex.packageName(line), "package of '" + line + "'");
+            }
+        }
+    }
+
     private static void assertContains(String txt, String token) {
         int index = txt.indexOf(token);
         if (index >= 0) {
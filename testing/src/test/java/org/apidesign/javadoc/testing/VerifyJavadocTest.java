@@ -18,12 +18,17 @@
 package org.apidesign.javadoc.testing;
 
 import java.io.File;
+import java.io.IOException;
 import static org.testng.Assert.*;
 
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
 import org.testng.annotations.Test;
 
 // BEGIN: sampleClass
@@ -288,6 +293,89 @@ public class VerifyJavadocTest {
         assertNotEquals(text.indexOf("Basic Package"), -1, "First group found");
     }
 
+    @Test
+    public void testNestedClassSharesSourcePage() throws Exception {
+        ClassLoader l = VerifyJavadocTest.class.getClassLoader();
+        URL url = l.getResource("linksource/apidocs/org/apidesign/javadoc/testing/SampleClass.Inner.html");
+        assertNotNull(url, "Generated page for nested class found");
+        File file = new File(url.toURI());
+        String text = new String(Files.readAllBytes(file.toPath()));
+        assertNotEquals(text.indexOf("src-html/org/apidesign/javadoc/testing/SampleClass.html#line."), -1,
+            "Links to the source page of the outer class");
+        assertEquals(text.indexOf("src-html/org/apidesign/javadoc/testing/SampleClass.Inner.html"), -1,
+            "No source page for the nested class");
+
+        assertNotNull(l.getResource("linksource/apidocs/src-html/org/apidesign/javadoc/testing/SampleClass.html"), "Source page generated");
+        assertNull(l.getResource("linksource/apidocs/src-html/org/apidesign/javadoc/testing/SampleClass.Inner.html"), "Source file converted once");
+    }
+
+    @Test
+    public void testFingerprintsRecorded() throws Exception {
+        ClassLoader l = VerifyJavadocTest.class.getClassLoader();
+        URL url = l.getResource("incremental/apidocs/.fingerprints");
+        assertNotNull(url, "Manifest of -incremental found");
+        File file = new File(url.toURI());
+        String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        assertTrue(text.contains(" org/apidesign/javadoc/testing/SampleClass.html\n"), "Class page recorded:\n" + text);
+        assertTrue(text.contains(" org/apidesign/javadoc/testing/SampleClass.Inner.html\n"), "Nested class page recorded:\n" + text);
+    }
+
+    @Test
+    public void testParallelOutputSameAsDefault() throws Exception {
+        assertSameOutput("parallel/apidocs");
+    }
+
+    @Test
+    public void testIncrementalOutputSameAsDefault() throws Exception {
+        assertSameOutput("incremental/apidocs");
+    }
+
+    @Test
+    public void testLinkSourceOnlyAddsSourceLinks() throws Exception {
+        ClassLoader l = VerifyJavadocTest.class.getClassLoader();
+        assertNull(l.getResource("apidocs/src-html"), "No source pages by default");
+        String text = readResource("linksource/apidocs/org/apidesign/javadoc/testing/SampleClass.html");
+        assertNotEquals(text.indexOf("src-html/org/apidesign/javadoc/testing/SampleClass.html#line."), -1, "Links to source");
+        String unlinked = text.replaceAll("<a href=\"[./]*src-html/[^\"]*\">([^<]*)</a>", "$1");
+        String plain = readResource("apidocs/org/apidesign/javadoc/testing/SampleClass.html")
+            .replaceAll("<span class=\"typeNameLabel\">([^<]*)</span>", "$1");
+        assertEquals(normalize(unlinked), normalize(plain));
+    }
+
+    private void assertSameOutput(String dir) throws Exception {
+        ClassLoader l = VerifyJavadocTest.class.getClassLoader();
+        Path expected = Paths.get(l.getResource("apidocs/index.html").toURI()).getParent();
+        Path actual = Paths.get(l.getResource(dir + "/index.html").toURI()).getParent();
+        assertEquals(listFiles(actual), listFiles(expected), "Same files generated in " + dir);
+        for (String name : listFiles(expected)) {
+            String exp = normalize(new String(Files.readAllBytes(expected.resolve(name)), StandardCharsets.UTF_8));
+            String act = normalize(new String(Files.readAllBytes(actual.resolve(name)), StandardCharsets.UTF_8));
+            assertEquals(act, exp, "Same content of " + name + " in " + dir);
+        }
+    }
+
+    private static Set<String> listFiles(Path root) throws IOException {
+        Set<String> names = new TreeSet<>();
+        try (Stream<Path> s = Files.walk(root)) {
+            s.filter(Files::isRegularFile)
+                .map((p) -> root.relativize(p).toString())
+                .filter((n) -> !n.equals(".fingerprints"))
+                .forEach(names::add);
+        }
+        return names;
+    }
+
+    /** Removes the lines that differ with every run of javadoc. */
+    private static String normalize(String text) {
+        return text.replaceAll("(?m)^.*(Generated by javadoc|<meta name=\"date\").*$", "");
+    }
+
+    private String readResource(String name) throws Exception {
+        URL url = VerifyJavadocTest.class.getClassLoader().getResource(name);
+        assertNotNull(url, name + " generated");
+        return new String(Files.readAllBytes(Paths.get(url.toURI())), StandardCharsets.UTF_8);
+    }
+
     private void assertSnippet(String text, final String snippetKey, final String snippetText) {
         int from = 0;
         for (;;) {